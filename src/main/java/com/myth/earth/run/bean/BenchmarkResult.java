@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import lombok.Data;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 方法基准测试结果，耗时单位为纳秒
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午5:10
+ */
+@Data
+public class BenchmarkResult {
+    /**
+     * 基准测试脚本返回的JSON前缀
+     */
+    private static final String PREFIX = "{\"benchmark\":";
+
+    /**
+     * 方法名称：类名#方法名
+     */
+    private String benchmark;
+    /**
+     * 预热次数
+     */
+    private int    warmup;
+    /**
+     * 测量次数
+     */
+    private int    iterations;
+    /**
+     * 每秒调用次数
+     */
+    private double opsPerSecond;
+    private long   p50;
+    private long   p90;
+    private long   p99;
+    private long   max;
+
+    /**
+     * 从执行结果中解析基准测试结果
+     *
+     * @param objectItem 执行结果
+     * @return 非基准测试脚本的结果时返回null
+     */
+    @Nullable
+    public static BenchmarkResult parse(@NotNull ObjectItem objectItem) {
+        String value = objectItem.getValue();
+        if (objectItem.getErrorMessage() != null || value == null || !value.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return JSON.parseObject(value, BenchmarkResult.class);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * IDE中编译完成的脚本
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午3:20
+ */
+@Data
+public class CompiledScript {
+    /**
+     * 脚本类名
+     */
+    private String              mainClass;
+    /**
+     * key: 类名，value: 字节码，包含脚本中的闭包及内部类
+     */
+    private Map<String, byte[]> classes;
+}
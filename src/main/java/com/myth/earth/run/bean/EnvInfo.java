@@ -44,6 +44,18 @@ public class EnvInfo {
      * 类加载器信息
      */
     private List<ClassloaderInfo> classloaderInfos;
+    /**
+     * 当前结果使用的投影/过滤表达式，展开子节点时沿用
+     */
+    private String                projection;
+    /**
+     * 当前会话使用的前置脚本
+     */
+    private String                prelude;
+    /**
+     * 前置脚本是否已在agent登记，未登记时每次执行前拼接
+     */
+    private boolean               preludeRegistered;
     /**
      * 是否活跃
      */
@@ -54,6 +66,9 @@ public class EnvInfo {
         addressUrl = null;
         sessionId = null;
         classloaderInfos = null;
+        projection = null;
+        prelude = null;
+        preludeRegistered = false;
         active = false;
     }
 
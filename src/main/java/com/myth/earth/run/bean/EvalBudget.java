@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 单次脚本执行的资源限制，0表示不限制 <br/>
+ * <p>
+ * 由agent在目标jvm中按执行线程统计(ThreadMXBean)，超出时中断脚本并通过 ObjectItem 的错误字段返回。
+ *
+ * @author zhouchao
+ * @date 2026-10-19 上午9:10
+ */
+@Data
+public class EvalBudget implements Serializable {
+    /**
+     * 执行超时时间(ms)
+     */
+    private int  wallTimeout;
+    /**
+     * 执行线程的CPU时间上限(ms)
+     */
+    private int  cpuTimeout;
+    /**
+     * 执行线程的内存分配上限(MB)
+     */
+    private long allocatedMb;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否设置了任一限制
+     *
+     * @return true: 有限制
+     */
+    public boolean isLimited() {
+        return wallTimeout > 0 || cpuTimeout > 0 || allocatedMb > 0;
+    }
+}
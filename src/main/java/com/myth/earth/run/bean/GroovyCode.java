@@ -39,6 +39,10 @@ public class GroovyCode implements Serializable {
      * 默认
      */
     private Boolean defaultFlag;
+    /**
+     * 会话前置脚本，建立会话时登记一次
+     */
+    private Boolean preludeFlag;
 
     public GroovyCode() {
     }
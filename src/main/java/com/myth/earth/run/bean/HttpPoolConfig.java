@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * agent 连接池配置
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午3:12
+ */
+@Data
+public class HttpPoolConfig implements Serializable {
+    /**
+     * 建立连接超时时间(ms)
+     */
+    private int connectTimeout = 3000;
+    /**
+     * 等待响应超时时间(ms)，小于等于0表示不限制（脚本可能长时间执行）
+     */
+    private int readTimeout    = 0;
+    /**
+     * 单个目标jvm的最大并发连接数
+     */
+    private int maxConnections = 4;
+    /**
+     * 并发连接数已满时等待空闲连接的超时时间(ms)
+     */
+    private int acquireTimeout = 30000;
+
+    private static final long serialVersionUID = 1L;
+}
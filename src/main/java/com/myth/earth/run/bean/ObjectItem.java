@@ -15,19 +15,35 @@
 
 package com.myth.earth.run.bean;
 
+import com.alibaba.fastjson.annotation.JSONField;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
 import java.util.List;
 
 /**
- * object item数据
+ * object item数据 <br/>
+ * <p>
+ * 大结果中类名、属性名大量重复，统一复用同一个字符串；子节点的访问路径只保存相对父节点的部分，使用时再拼接。
  *
  * @author zhouchao
  * @date 2024-11-25 下午10:34
  */
 @Data
 public class ObjectItem implements Serializable {
+    /**
+     * 类名、属性名常量池，弱引用，结果释放后随之回收
+     */
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
     private String           id;
     private String           objectId;
     /**
@@ -35,16 +51,25 @@ public class ObjectItem implements Serializable {
      */
     private String           type;
     /**
-     * 对象所属标志：根节点root、属性property、方法method、条目entry、索引index
+     * 对象所属标志：根节点root、属性property、方法method、条目entry、索引index <br/>
+     * 只保留 {@link #setFlag(String)} 一个setter，fastjson 按字符串反序列化，无法识别的值为 {@link ObjectItemFlag#UNKNOWN}
      */
-    private String           flag;
+    @Setter(AccessLevel.NONE)
+    private ObjectItemFlag   flag;
     private String           name;
     private String           value;
     private List<ObjectItem> children;
     /**
-     * 访问路径
+     * 访问路径，有父节点时仅保存相对父节点的部分
      */
     private String           path;
+    /**
+     * 父节点，用于拼接完整访问路径；不参与JSON序列化，否则会输出 $ref 引用
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @JSONField(serialize = false, deserialize = false)
+    private ObjectItem       parent;
     /**
      * 当type为Collection\map\Array类型时才有值
      */
@@ -67,4 +92,98 @@ public class ObjectItem implements Serializable {
     private String           errorType;
 
     private static final long serialVersionUID = 1L;
+
+    public void setType(@Nullable String type) {
+        this.type = type == null ? null : NAMES.intern(type);
+    }
+
+    public void setName(@Nullable String name) {
+        this.name = name == null ? null : NAMES.intern(name);
+    }
+
+    /**
+     * 设置对象所属标志，兼容agent返回的标志字符串及枚举名称
+     *
+     * @param flag 标志字符串
+     */
+    public void setFlag(@Nullable String flag) {
+        this.flag = ObjectItemFlag.of(flag);
+    }
+
+    public void setPath(@Nullable String path) {
+        this.path = path;
+        this.parent = null;
+    }
+
+    /**
+     * 完整访问路径，有父节点时沿父节点逐层拼接 <br/>
+     * <p>
+     * 结果不缓存，每次调用都会新建字符串，开销与层级深度成正比；循环中多次使用同一节点的路径时应先取出再复用。
+     *
+     * @return 访问路径
+     */
+    public String getPath() {
+        if (parent == null || path == null) {
+            return path;
+        }
+        int depth = 0;
+        int length = 0;
+        for (ObjectItem item = this; item != null && item.path != null; item = item.parent) {
+            depth++;
+            length += item.path.length();
+        }
+        String[] segments = new String[depth];
+        ObjectItem item = this;
+        for (int i = depth - 1; i >= 0; i--) {
+            segments[i] = item.path;
+            item = item.parent;
+        }
+        StringBuilder builder = new StringBuilder(length);
+        for (String segment : segments) {
+            builder.append(segment);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 挂到父节点下，访问路径以父节点路径开头时只保留后缀
+     *
+     * @param parent 父节点
+     */
+    public void attachTo(@NotNull ObjectItem parent) {
+        attachTo(parent, parent.getPath());
+    }
+
+    /**
+     * 挂到父节点下，同一父节点下挂载多个子节点时由调用方传入已拼接好的父节点路径
+     *
+     * @param parent     父节点
+     * @param parentPath 父节点的完整访问路径
+     * @return 当前节点的完整访问路径
+     */
+    public String attachTo(@NotNull ObjectItem parent, @Nullable String parentPath) {
+        String fullPath = getPath();
+        if (parentPath == null || fullPath == null || !fullPath.startsWith(parentPath)) {
+            return fullPath;
+        }
+        this.path = fullPath.substring(parentPath.length());
+        this.parent = parent;
+        return fullPath;
+    }
+
+    /**
+     * 压缩当前节点下已返回的所有子节点
+     */
+    public void compact() {
+        compact(getPath());
+    }
+
+    private void compact(@Nullable String fullPath) {
+        if (children == null) {
+            return;
+        }
+        for (ObjectItem child : children) {
+            child.compact(child.attachTo(this, fullPath));
+        }
+    }
 }
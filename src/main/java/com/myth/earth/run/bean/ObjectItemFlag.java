@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 对象所属标志，替代agent返回的标志字符串
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午9:40
+ */
+public enum ObjectItemFlag {
+    /**
+     * 根节点
+     */
+    ROOT("root"),
+    /**
+     * 属性
+     */
+    PROPERTY("property"),
+    /**
+     * 方法
+     */
+    METHOD("method"),
+    /**
+     * 条目
+     */
+    ENTRY("entry"),
+    /**
+     * 索引
+     */
+    INDEX("index"),
+    /**
+     * 无法识别的标志，不做渲染
+     */
+    UNKNOWN("unknown");
+
+    private final String code;
+
+    ObjectItemFlag(String code) {
+        this.code = code;
+    }
+
+    @NotNull
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 按agent返回的标志字符串转换，同时兼容枚举名称
+     *
+     * @param code 标志字符串
+     * @return 对应标志，code为空时返回null，无法识别时返回 {@link #UNKNOWN}
+     */
+    @Nullable
+    public static ObjectItemFlag of(@Nullable String code) {
+        if (code == null) {
+            return null;
+        }
+        for (ObjectItemFlag flag : values()) {
+            if (flag.code.equals(code) || flag.name().equals(code)) {
+                return flag;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -16,6 +16,9 @@
 package com.myth.earth.run.core;
 
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.myth.earth.run.helper.EarthHttpHelper;
+import com.myth.earth.run.helper.UnixSocketTransport;
 import com.sun.tools.attach.*;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
@@ -26,7 +29,17 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -38,24 +51,73 @@ import java.util.stream.Collectors;
  * @date 2024/11/13 下午7:49
  **/
 public class AgentAttachService {
-    private static final Logger               logger    = Logger.getLogger(AgentAttachService.class.getName());
+    private static final Logger                                  logger                = Logger.getLogger(AgentAttachService.class.getName());
     /**
-     * 获取jvm 列表
+     * 并行attach的最大线程数
      */
-    private final        Map<String, JvmItem> attachMap = new HashMap<>();
-    private static final String               pid;
+    private static final int                                     ATTACH_THREADS        = 8;
+    /**
+     * agent 启动后写入目标jvm的通信端口属性
+     */
+    private static final String                                  AGENT_PORT_PROPERTY   = "earth.agent.httpPort";
+    /**
+     * agent 监听 Unix Domain Socket 时写入目标jvm的socket路径属性
+     */
+    private static final String                                  AGENT_SOCKET_PROPERTY = "earth.agent.socketPath";
+    /**
+     * 目标jvm不低于该版本时优先使用 Unix Domain Socket 通信
+     */
+    private static final float                                   UNIX_SOCKET_VERSION   = 16f;
+    private static final String                                  TARGET_IP             = "127.0.0.1";
+    /**
+     * 每个目标jvm保留的attach耗时记录数
+     */
+    private static final int                                     HISTORY_SIZE          = 10;
+    /**
+     * 获取jvm 列表，EDT和后台线程都会访问
+     */
+    private final        Map<String, JvmItem>                    attachMap             = new ConcurrentHashMap<>();
+    private final        ExecutorService                         attachExecutor        = AppExecutorUtil.createBoundedApplicationPoolExecutor("EarthRunHelper.Attach", ATTACH_THREADS);
+    /**
+     * agent 通信端口分配
+     */
+    private final        AgentPortAllocator                      portAllocator         = new AgentPortAllocator(1030, 1230);
+    /**
+     * key: pid，value: 最近的attach各阶段耗时，最新的在前
+     */
+    private final        Map<String, Deque<Map<String, Long>>>   attachHistory         = new ConcurrentHashMap<>();
+    /**
+     * key: pid，value: 进行中的attach
+     */
+    private final        Map<String, CompletableFuture<JvmItem>> attaching             = new ConcurrentHashMap<>();
+    private static final String                                  pid;
 
     static {
         RuntimeMXBean runtimeMXBean = ManagementFactory.getRuntimeMXBean();
         pid = runtimeMXBean.getName().split("@")[0];
     }
 
+    public AgentAttachService() {
+        ApplicationManager.getApplication().getMessageBus().connect().subscribe(JvmLivenessListener.TOPIC, new JvmLivenessListener() {
+            @Override
+            public void jvmExited(@NotNull String pid) {
+                portAllocator.release(pid);
+                attachHistory.remove(pid);
+                deleteSocketFile(pid);
+                JvmItem jvmItem = attachMap.remove(pid);
+                if (jvmItem != null) {
+                    logger.info("目标jvm离线：" + jvmItem);
+                }
+            }
+        });
+    }
+
     public static AgentAttachService getInstance() {
         return ApplicationManager.getApplication().getService(AgentAttachService.class);
     }
 
     public Collection<JvmItem> jvmList() {
-        List<VirtualMachineDescriptor> list = VirtualMachine.list();
+        Collection<VirtualMachineDescriptor> list = JvmLivenessRegistry.getInstance().descriptors().values();
         // 排除自身，在执行的应用
         Map<String, JvmItem> items = list.stream()
                                          .filter(v -> !v.id().equals(pid))
@@ -83,11 +145,8 @@ public class AgentAttachService {
         }
 
         // 检查当前pid对应的服务是否还存在
-        List<VirtualMachineDescriptor> list = VirtualMachine.list();
-        for (VirtualMachineDescriptor descriptor : list) {
-            if (descriptor.id().equals(pid)) {
-                return String.format("http://%s:%s/jz", jvmItem.getTargetIp(), jvmItem.getTargetPort());
-            }
+        if (JvmLivenessRegistry.getInstance().isAlive(pid)) {
+            return jvmItem.getAddressUrl();
         }
         return null;
     }
@@ -114,6 +173,35 @@ public class AgentAttachService {
      * @return 挂载进去的jvm信息
      */
     public JvmItem attach(@NotNull String id, String agentPath, String configs) {
+        // 同一进程同一时间只attach一次，并发调用方等待进行中的结果
+        CompletableFuture<JvmItem> attach = new CompletableFuture<>();
+        CompletableFuture<JvmItem> running = attaching.putIfAbsent(id, attach);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            JvmItem jvmItem = attachOnce(id, agentPath, configs);
+            attach.complete(jvmItem);
+            return jvmItem;
+        } catch (RuntimeException e) {
+            attach.completeExceptionally(e);
+            throw e;
+        } finally {
+            attaching.remove(id, attach);
+        }
+    }
+
+    private JvmItem attachOnce(@NotNull String id, String agentPath, String configs) {
+        // 已挂载且agent可用时直接返回，无需再次attach
+        JvmItem attached = attachMap.get(id);
+        if (attached != null && EarthHttpHelper.isHealthy(attached.getAddressUrl())) {
+            return attached;
+        }
+
         // 参数配置
         Properties configsPro = new Properties();
         if (configs != null) {
@@ -123,20 +211,54 @@ public class AgentAttachService {
                 throw new RuntimeException(e);
             }
         }
-        if (!configsPro.contains("port")) {
-            configsPro.put("port", getInitPort());
+        boolean leased = false;
+        if (!configsPro.containsKey("port")) {
+            // 上次分配的端口被该进程自己的常驻agent占用时继续沿用
+            int port = portAllocator.lease(id, leasedPort -> EarthHttpHelper.isHealthy(JvmItem.formatAddressUrl(TARGET_IP, String.valueOf(leasedPort))));
+            configsPro.put("port", String.valueOf(port));
+            leased = true;
         }
         configs = configsPro.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(","));
+        JvmItem jvmItem;
+        try {
+            jvmItem = doAttach(id, agentPath, configs);
+        } catch (RuntimeException e) {
+            if (leased) {
+                portAllocator.release(id);
+            }
+            throw e;
+        }
+        if (jvmItem.targetPort > 0) {
+            portAllocator.update(id, jvmItem.targetPort);
+        } else {
+            // 仅通过 Unix Domain Socket 通信，无需占用端口
+            portAllocator.release(id);
+        }
+        recordHistory(id, jvmItem.attachPhases);
+        attachMap.put(jvmItem.id, jvmItem);
+        JvmLivenessRegistry.getInstance().track(jvmItem.id);
+        return jvmItem;
+    }
+
+    private JvmItem doAttach(@NotNull String id, String agentPath, String configs) {
         float currentJvmVersion = 0f, targetJvmVersion = 0f;
         VirtualMachine vm;
         VirtualMachineDescriptor virtualMachineDescriptor;
+        Properties targetVmProperties;
         String httpPort;
+        String socketPath;
         String warningMessage = null;
-        virtualMachineDescriptor = VirtualMachine.list().stream().filter(v -> v.id().equals(id)).findFirst().get();
+        virtualMachineDescriptor = JvmLivenessRegistry.getInstance().descriptor(id);
+        if (virtualMachineDescriptor == null) {
+            throw new IllegalStateException("目标虚拟机不存在：" + id);
+        }
+        Map<String, Long> phases = new LinkedHashMap<>();
+        long mark = System.nanoTime();
         // 1.attach
         try {
             vm = VirtualMachine.attach(virtualMachineDescriptor);
-            Properties targetVmProperties = vm.getSystemProperties();
+            mark = recordPhase(phases, JvmItem.PHASE_ATTACH, mark);
+            targetVmProperties = vm.getSystemProperties();
             // 验证jvm版本信息
             currentJvmVersion = getJavaVersion(System.getProperties());
             targetJvmVersion = getJavaVersion(targetVmProperties);
@@ -144,78 +266,282 @@ public class AgentAttachService {
                 warningMessage = String.format("与目标JVM版本不一至，可能引发agent装载错误，当前JVM%s,目标JVM%s", currentJvmVersion, targetJvmVersion);
                 logger.warning(warningMessage);
             }
+            mark = recordPhase(phases, JvmItem.PHASE_VERSION_CHECK, mark);
         } catch (AttachNotSupportedException e) {
             throw new IllegalStateException("目标虚拟机不支持Attach", e);
         } catch (IOException e) {
             throw new IllegalStateException("连接(attach)目标虚拟机失败", e);
         }
-        // 2.loadAgent。然后开始执行：org.coderead.jcat.BootstrapAgent.agentmain
-        try {
-            vm.loadAgent(agentPath, configs);
-        } catch (AgentLoadException e) {
-            if ("0".equals(e.getMessage())) {
-                // https://stackoverflow.com/a/54454418
-                warningMessage = String.format("与目标JVM版本不一至,当前JVM%s 目标JVM%s", currentJvmVersion, targetJvmVersion);
-                logger.log(Level.WARNING, warningMessage, e);
-            } else {
-                throw new IllegalStateException("agent装载失败", e);
-            }
-        } catch (AgentInitializationException e) {
-            throw new IllegalStateException("agent初始化失败", e);
-        } catch (IOException e) {
-            if (e.getMessage() != null && e.getMessage().contains("Non-numeric value found")) {
-                warningMessage = String.format("与目标JVM版本不一至,当前JVM%s 目标JVM%s", currentJvmVersion, targetJvmVersion);
-                logger.log(Level.WARNING, warningMessage, e);
-            } else {
+        // agent已常驻（如IDE重启后重新连接）且可用时，直接复用，不再重复装载
+        httpPort = targetVmProperties.getProperty(AGENT_PORT_PROPERTY);
+        socketPath = useUnixSocket(targetJvmVersion) ? targetVmProperties.getProperty(AGENT_SOCKET_PROPERTY) : null;
+        boolean resident = (httpPort != null || socketPath != null) && EarthHttpHelper.isHealthy(formatAddressUrl(httpPort, socketPath));
+        if (httpPort != null || socketPath != null) {
+            mark = recordPhase(phases, JvmItem.PHASE_PROBE_AGENT, mark);
+        }
+        if (resident) {
+            logger.info("agent已常驻，复用地址：" + formatAddressUrl(httpPort, socketPath) + "，pid:" + id);
+            try {
+                vm.detach();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "detach failed: " + id, e);
+            }
+            // 复用时未装载agent，也无需再次读取属性，只记录实际发生的阶段
+            recordPhase(phases, JvmItem.PHASE_DETACH, mark);
+        } else {
+            // 2.loadAgent。然后开始执行：org.coderead.jcat.BootstrapAgent.agentmain
+            // Java 16+ 的目标jvm额外指定socket路径，旧版本agent忽略该参数仍按端口通信
+            if (useUnixSocket(targetJvmVersion) && (configs == null || !configs.contains("socketPath="))) {
+                configs = (configs == null || configs.isEmpty() ? "" : configs + ",") + "socketPath=" + socketFile(id).toString().replace('\\', '/');
+            }
+            try {
+                vm.loadAgent(agentPath, configs);
+            } catch (AgentLoadException e) {
+                if ("0".equals(e.getMessage())) {
+                    // https://stackoverflow.com/a/54454418
+                    warningMessage = String.format("与目标JVM版本不一至,当前JVM%s 目标JVM%s", currentJvmVersion, targetJvmVersion);
+                    logger.log(Level.WARNING, warningMessage, e);
+                } else {
+                    throw new IllegalStateException("agent装载失败", e);
+                }
+            } catch (AgentInitializationException e) {
+                throw new IllegalStateException("agent初始化失败", e);
+            } catch (IOException e) {
+                if (e.getMessage() != null && e.getMessage().contains("Non-numeric value found")) {
+                    warningMessage = String.format("与目标JVM版本不一至,当前JVM%s 目标JVM%s", currentJvmVersion, targetJvmVersion);
+                    logger.log(Level.WARNING, warningMessage, e);
+                } else {
+                    throw new IllegalStateException("读取目标虚拟机信息失败", e);
+                }
+            }
+            mark = recordPhase(phases, JvmItem.PHASE_LOAD_AGENT, mark);
+            // 3.验证端口是否顺利打开
+            try {
+                Properties agentProperties = vm.getSystemProperties();
+                httpPort = agentProperties.getProperty(AGENT_PORT_PROPERTY);
+                socketPath = useUnixSocket(targetJvmVersion) ? agentProperties.getProperty(AGENT_SOCKET_PROPERTY) : null;
+                // Assert.hasText(httpPort, "agent打开端口失败：未能获取到目标通信端口");
+                mark = recordPhase(phases, JvmItem.PHASE_READ_PROPERTIES, mark);
+                vm.detach();// 分离端口
+            } catch (IOException e) {
                 throw new IllegalStateException("读取目标虚拟机信息失败", e);
             }
+            recordPhase(phases, JvmItem.PHASE_DETACH, mark);
         }
-        // 3.验证端口是否顺利打开
-        try {
-            httpPort = vm.getSystemProperties().getProperty("earth.agent.httpPort");
-            // Assert.hasText(httpPort, "agent打开端口失败：未能获取到目标通信端口");
-            vm.detach();// 分离端口
-        } catch (IOException e) {
-            throw new IllegalStateException("读取目标虚拟机信息失败", e);
+        logger.info("attach耗时(ms)，pid:" + id + "，" + phases);
+
+        if (httpPort == null && socketPath == null) {
+            throw new IllegalStateException("agent打开端口失败：未能获取到目标通信端口");
         }
 
         // 4.封装返回结果
         JvmItem jvmItem = new JvmItem(vm.id(), virtualMachineDescriptor.displayName());
-        jvmItem.targetPort = Integer.parseInt(httpPort);
+        jvmItem.targetPort = httpPort == null ? 0 : Integer.parseInt(httpPort);
+        jvmItem.socketPath = socketPath;
         jvmItem.attachTime = System.currentTimeMillis();
         jvmItem.jvmVersion = targetJvmVersion;
         jvmItem.warningMessage = warningMessage;
-        attachMap.put(jvmItem.id, jvmItem);
+        jvmItem.attachPhases = phases;
         return jvmItem;
     }
 
-    private float getJavaVersion(Properties systemProperties) {
-        return Float.parseFloat(systemProperties.getProperty("java.specification.version"));
+    /**
+     * 并行挂载多个jvm，总耗时约等于最慢的一个
+     *
+     * @param ids       进程id列表
+     * @param agentPath agent路径
+     * @param configs   参数配置，使用(,)逗号分割
+     * @return key:pid，每个进程的挂载结果
+     */
+    @NotNull
+    public Map<String, AttachResult> attachAll(@NotNull Collection<String> ids, String agentPath, String configs) {
+        Map<String, Future<JvmItem>> futures = new LinkedHashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            futures.put(id, attachExecutor.submit(() -> attach(id, agentPath, configs)));
+        }
+
+        Map<String, AttachResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<JvmItem>> entry : futures.entrySet()) {
+            String id = entry.getKey();
+            try {
+                results.put(id, new AttachResult(id, entry.getValue().get(), null));
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "attach failed: " + id, e.getCause());
+                results.put(id, new AttachResult(id, null, e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(f -> f.cancel(true));
+                results.put(id, new AttachResult(id, null, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 获取目标jvm最近的attach各阶段耗时
+     *
+     * @param pid 进程id
+     * @return 最新的在前，key:阶段，value:耗时(ms)
+     */
+    @NotNull
+    public List<Map<String, Long>> getAttachHistory(@NotNull String pid) {
+        Deque<Map<String, Long>> history = attachHistory.get(pid);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    private void recordHistory(@NotNull String pid, @NotNull Map<String, Long> phases) {
+        Deque<Map<String, Long>> history = attachHistory.computeIfAbsent(pid, k -> new ArrayDeque<>());
+        synchronized (history) {
+            history.addFirst(phases);
+            while (history.size() > HISTORY_SIZE) {
+                history.removeLast();
+            }
+        }
+    }
+
+    private static long recordPhase(@NotNull Map<String, Long> phases, @NotNull String phase, long start) {
+        long now = System.nanoTime();
+        phases.put(phase, (now - start) / 1_000_000);
+        return now;
+    }
+
+    /**
+     * 目标jvm与当前IDE运行时都支持时才使用 Unix Domain Socket
+     */
+    private static boolean useUnixSocket(float targetJvmVersion) {
+        return targetJvmVersion >= UNIX_SOCKET_VERSION && UnixSocketTransport.isSupported();
+    }
+
+    /**
+     * socket文件放在当前用户目录下，仅当前用户可访问：~/.jz-zhou/sock/{pid}.sock
+     */
+    @NotNull
+    private static Path socketFile(@NotNull String pid) {
+        Path socketDir = Paths.get(System.getProperty("user.home"), ".jz-zhou", "sock");
+        try {
+            if (!Files.isDirectory(socketDir)) {
+                Files.createDirectories(socketDir);
+                if (socketDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                    Files.setPosixFilePermissions(socketDir, PosixFilePermissions.fromString("rwx------"));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("创建socket目录失败：" + socketDir, e);
+        }
+        return socketDir.resolve(pid + ".sock");
+    }
+
+    /**
+     * 目标jvm退出后清理残留的socket文件
+     */
+    private static void deleteSocketFile(@NotNull String pid) {
+        Path socketFile = Paths.get(System.getProperty("user.home"), ".jz-zhou", "sock", pid + ".sock");
+        try {
+            Files.deleteIfExists(socketFile);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "delete socket file failed: " + socketFile, e);
+        }
     }
 
-    private int getInitPort() {
-        return attachMap.values().stream().mapToInt(s -> s.targetPort).max().orElse(1030);
+    @NotNull
+    private static String formatAddressUrl(@Nullable String httpPort, @Nullable String socketPath) {
+        return socketPath != null ? UnixSocketTransport.formatAddressUrl(socketPath) : JvmItem.formatAddressUrl(TARGET_IP, httpPort);
+    }
+
+    private float getJavaVersion(Properties systemProperties) {
+        return Float.parseFloat(systemProperties.getProperty("java.specification.version"));
     }
 
     @Getter
     public static class JvmItem implements Serializable {
+        public static final String PHASE_ATTACH          = "attach";
+        public static final String PHASE_VERSION_CHECK   = "versionCheck";
+        public static final String PHASE_PROBE_AGENT     = "probeAgent";
+        public static final String PHASE_LOAD_AGENT      = "loadAgent";
+        public static final String PHASE_READ_PROPERTIES = "readProperties";
+        public static final String PHASE_DETACH          = "detach";
+
         String id;
         String name;
         long   attachTime; // 负载时间
-        int    targetPort;// 目标虚拟机通信端口
-        String targetIp = "127.0.0.1";
+        int    targetPort;// 目标虚拟机通信端口，仅使用socket通信时为0
+        String targetIp = TARGET_IP;
+        String socketPath;// 目标虚拟机通信socket路径，为空时使用端口通信
         String warningMessage;
         float  jvmVersion;
+        /**
+         * attach各阶段耗时，key:阶段，value:耗时(ms)
+         */
+        Map<String, Long> attachPhases = Collections.emptyMap();
 
         public JvmItem(String id, String name) {
             this.id = id;
             this.name = name;
         }
 
+        /**
+         * agent 通信根路径
+         *
+         * @return url地址
+         */
+        public String getAddressUrl() {
+            if (socketPath != null) {
+                return UnixSocketTransport.formatAddressUrl(socketPath);
+            }
+            return formatAddressUrl(targetIp, String.valueOf(targetPort));
+        }
+
+        static String formatAddressUrl(String targetIp, String targetPort) {
+            return String.format("http://%s:%s/jz", targetIp, targetPort);
+        }
+
+        /**
+         * 最近一次attach的耗时摘要，如：共120ms（attach 35ms，loadAgent 80ms，detach 5ms）
+         *
+         * @return 耗时摘要，没有记录时为空串
+         */
+        public String formatAttachPhases() {
+            if (attachPhases.isEmpty()) {
+                return "";
+            }
+            long total = 0;
+            StringJoiner joiner = new StringJoiner("，", "（", "）");
+            for (Map.Entry<String, Long> phase : attachPhases.entrySet()) {
+                total += phase.getValue();
+                joiner.add(phase.getKey() + " " + phase.getValue() + "ms");
+            }
+            return "共" + total + "ms" + joiner;
+        }
+
         @Override
         public String toString() {
             return "JvmItem{" + "id='" + id + '\'' + ", name='" + name + '\'' + ", attachTime=" + attachTime + ", targetPort=" + targetPort + ", targetIp='"
                     + targetIp + '\'' + '}';
         }
     }
+
+    /**
+     * 单个进程的挂载结果
+     */
+    @Getter
+    public static class AttachResult {
+        String    id;
+        JvmItem   jvmItem;
+        Throwable error;
+
+        public AttachResult(String id, JvmItem jvmItem, Throwable error) {
+            this.id = id;
+            this.jvmItem = jvmItem;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return jvmItem != null;
+        }
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+
+/**
+ * agent 通信端口分配 <br/>
+ * <p>
+ * 在端口区间内探测空闲端口后再交给 loadAgent，并按进程记录租约，避免多个目标jvm申请同一端口。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午8:34
+ */
+public class AgentPortAllocator {
+    private static final Logger               logger = Logger.getLogger(AgentPortAllocator.class.getName());
+    /**
+     * 端口区间 [begin, end)
+     */
+    private final        int                  begin;
+    private final        int                  end;
+    /**
+     * key: pid，value: 端口
+     */
+    private final        Map<String, Integer> leases = new HashMap<>();
+    /**
+     * 下次探测的起始端口，轮转分配，避免刚释放的端口立即被复用
+     */
+    private              int                  cursor;
+
+    public AgentPortAllocator(int begin, int end) {
+        if (begin <= 0 || end <= begin || end > 65536) {
+            throw new IllegalArgumentException("端口区间不合法：[" + begin + "," + end + ")");
+        }
+        this.begin = begin;
+        this.end = end;
+        this.cursor = begin;
+    }
+
+    /**
+     * 为进程分配一个空闲端口，已有租约且端口仍空闲、或正被该进程自己的常驻agent占用时直接复用
+     *
+     * @param pid           进程id
+     * @param residentAgent 租约端口被占用时，判断占用方是否为该进程健康的常驻agent
+     * @return 端口
+     */
+    public synchronized int lease(@NotNull String pid, @NotNull IntPredicate residentAgent) {
+        Integer leased = leases.get(pid);
+        if (leased != null && (isAvailable(leased) || residentAgent.test(leased))) {
+            return leased;
+        }
+
+        int size = end - begin;
+        for (int i = 0; i < size; i++) {
+            int port = begin + (cursor - begin + i) % size;
+            if (leases.containsValue(port) || !isAvailable(port)) {
+                continue;
+            }
+            cursor = port + 1 >= end ? begin : port + 1;
+            leases.put(pid, port);
+            return port;
+        }
+        throw new IllegalStateException("端口区间[" + begin + "," + end + ")内没有可用端口");
+    }
+
+    /**
+     * agent 实际使用的端口与租约不同时更新租约
+     *
+     * @param pid  进程id
+     * @param port 实际端口
+     */
+    public synchronized void update(@NotNull String pid, int port) {
+        Integer leased = leases.put(pid, port);
+        if (leased != null && leased != port) {
+            logger.info("agent端口与分配的不一致，pid:" + pid + "，分配:" + leased + "，实际:" + port);
+        }
+    }
+
+    /**
+     * 释放进程的端口租约
+     *
+     * @param pid 进程id
+     */
+    public synchronized void release(@NotNull String pid) {
+        leases.remove(pid);
+    }
+
+    private boolean isAvailable(int port) {
+        try (ServerSocket serverSocket = new ServerSocket()) {
+            serverSocket.setReuseAddress(false);
+            serverSocket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
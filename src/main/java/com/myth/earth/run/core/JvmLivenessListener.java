@@ -13,28 +13,32 @@
  *  limitations under the License.
  */
 
-package com.myth.earth.run.listener;
+package com.myth.earth.run.core;
 
-import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.project.Project;
-import com.intellij.openapi.startup.StartupActivity;
-import com.myth.earth.run.helper.AgentLoadHelper;
+import com.intellij.util.messages.Topic;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * 插件更新通知
+ * 目标jvm存活状态变化监听
  *
  * @author zhouchao
- * @date 2024-04-03 16:24
+ * @date 2026-10-18 下午7:15
  */
-public class PluginUpdateNotification  implements StartupActivity {
+public interface JvmLivenessListener {
 
-    @Override
-    public void runActivity(@NotNull Project project) {
-        // 非单元测试模块
-        if (ApplicationManager.getApplication().isUnitTestMode()) {
-            return;
-        }
-        AgentLoadHelper.loadAgent(true);
+    Topic<JvmLivenessListener> TOPIC = Topic.create("EarthRunHelper.JvmLiveness", JvmLivenessListener.class);
+
+    /**
+     * 已挂载的目标jvm退出
+     *
+     * @param pid 进程id
+     */
+    default void jvmExited(@NotNull String pid) {
+    }
+
+    /**
+     * 本机jvm列表发生变化（有进程启动或退出）
+     */
+    default void jvmListChanged() {
     }
-}
\ No newline at end of file
+}
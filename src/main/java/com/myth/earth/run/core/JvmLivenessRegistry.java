@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.core;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import com.sun.tools.attach.VirtualMachine;
+import com.sun.tools.attach.VirtualMachineDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本机jvm存活状态登记 <br/>
+ * <p>
+ * 已挂载的进程通过 {@link ProcessHandle#onExit()} 感知退出；本机jvm列表通过监听 hsperfdata 目录变化按需刷新，
+ * 避免每次校验都调用 {@link VirtualMachine#list()} 扫描目录。监听不可用时退回每次扫描。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午7:20
+ */
+public class JvmLivenessRegistry implements Disposable {
+    private static final Logger                                logger      = Logger.getInstance(JvmLivenessRegistry.class);
+    /**
+     * 已挂载且存活的进程
+     */
+    private final        Set<String>                           trackedPids = ConcurrentHashMap.newKeySet();
+    /**
+     * 本机jvm列表缓存
+     */
+    private volatile     Map<String, VirtualMachineDescriptor> descriptors = Collections.emptyMap();
+    private volatile     boolean                               dirty       = true;
+    private volatile     WatchService                          watchService;
+
+    public static JvmLivenessRegistry getInstance() {
+        return ApplicationManager.getApplication().getService(JvmLivenessRegistry.class);
+    }
+
+    public JvmLivenessRegistry() {
+        startWatcher();
+    }
+
+    /**
+     * 进程是否存活，已挂载的进程直接查询登记信息
+     *
+     * @param pid 进程id
+     * @return 是否存活
+     */
+    public boolean isAlive(@Nullable String pid) {
+        if (pid == null) {
+            return false;
+        }
+        if (trackedPids.contains(pid)) {
+            return true;
+        }
+        return descriptors().containsKey(pid);
+    }
+
+    /**
+     * 获取进程对应的jvm信息
+     *
+     * @param pid 进程id
+     * @return jvm信息，进程不存在时为空
+     */
+    @Nullable
+    public VirtualMachineDescriptor descriptor(@NotNull String pid) {
+        VirtualMachineDescriptor descriptor = descriptors().get(pid);
+        if (descriptor == null && !dirty) {
+            // 目录事件可能还未送达，强制刷新一次
+            dirty = true;
+            descriptor = descriptors().get(pid);
+        }
+        return descriptor;
+    }
+
+    /**
+     * 本机jvm列表，仅在 hsperfdata 目录发生变化后重新扫描
+     *
+     * @return key:pid
+     */
+    @NotNull
+    public Map<String, VirtualMachineDescriptor> descriptors() {
+        if (dirty || watchService == null) {
+            // 先清除标记，扫描期间发生的变化会重新标记
+            dirty = false;
+            Map<String, VirtualMachineDescriptor> current = new LinkedHashMap<>();
+            for (VirtualMachineDescriptor descriptor : VirtualMachine.list()) {
+                current.put(descriptor.id(), descriptor);
+            }
+            descriptors = Collections.unmodifiableMap(current);
+        }
+        return descriptors;
+    }
+
+    /**
+     * 登记已挂载的进程，进程退出时发布 {@link JvmLivenessListener#jvmExited(String)}
+     *
+     * @param pid 进程id
+     */
+    public void track(@NotNull String pid) {
+        if (!trackedPids.add(pid)) {
+            return;
+        }
+        ProcessHandle processHandle = ProcessHandle.of(Long.parseLong(pid)).orElse(null);
+        if (processHandle == null) {
+            trackedPids.remove(pid);
+            return;
+        }
+        processHandle.onExit().thenRun(() -> {
+            trackedPids.remove(pid);
+            dirty = true;
+            logger.info("目标jvm退出：" + pid);
+            ApplicationManager.getApplication().getMessageBus().syncPublisher(JvmLivenessListener.TOPIC).jvmExited(pid);
+        });
+    }
+
+    private void startWatcher() {
+        Path perfDataDir = Paths.get(getPerfDataRoot(), "hsperfdata_" + System.getProperty("user.name"));
+        if (!Files.isDirectory(perfDataDir)) {
+            logger.info("hsperfdata directory not found, fallback to scan: " + perfDataDir);
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            perfDataDir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            this.watchService = service;
+        } catch (IOException e) {
+            logger.warn("watch hsperfdata directory failed, fallback to scan: " + perfDataDir, e);
+            return;
+        }
+        // 监听会一直阻塞等待目录事件，使用独立的守护线程，不占用共享线程池
+        Thread watcher = new Thread(this::watchLoop, "earth-hsperfdata-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Linux 上 HotSpot 固定写入 /tmp，不受 java.io.tmpdir 影响；其他系统使用临时目录
+     */
+    @NotNull
+    private static String getPerfDataRoot() {
+        return SystemInfo.isLinux ? "/tmp" : System.getProperty("java.io.tmpdir");
+    }
+
+    private void watchLoop() {
+        WatchService service = this.watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                key.pollEvents();
+                dirty = true;
+                ApplicationManager.getApplication().getMessageBus().syncPublisher(JvmLivenessListener.TOPIC).jvmListChanged();
+                if (!key.reset()) {
+                    // 目录被删除，退回每次扫描
+                    dispose();
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 插件卸载或应用关闭
+        }
+    }
+
+    @Override
+    public void dispose() {
+        WatchService service = this.watchService;
+        this.watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.alibaba.fastjson.JSONObject;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * agent 支持的能力，打开连接后协商一次并按目标地址缓存 <br/>
+ * <p>
+ * 旧版本agent没有能力接口，此时返回空集合，调用方按原有协议处理；协商失败、超时等临时错误同样按原有协议处理，短时间内不再重复协商。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午4:05
+ */
+public final class AgentFeatures {
+    private static final Logger                   logger            = Logger.getInstance(AgentFeatures.class);
+    /**
+     * 脚本通过请求体提交
+     */
+    public static final  String                   POST_SCRIPT       = "postScript";
+    /**
+     * 请求体支持gzip压缩
+     */
+    public static final  String                   GZIP              = "gzip";
+    /**
+     * 响应支持 CBOR 二进制格式
+     */
+    public static final  String                   CBOR              = "cbor";
+    /**
+     * 支持中断会话中正在执行的脚本
+     */
+    public static final  String                   INTERRUPT         = "interrupt";
+    /**
+     * 支持按执行资源限制中断脚本
+     */
+    public static final  String                   BUDGET            = "budget";
+    /**
+     * 支持在序列化前按投影/过滤表达式裁剪结果
+     */
+    public static final  String                   PROJECTION        = "projection";
+    /**
+     * 支持按会话登记前置脚本
+     */
+    public static final  String                   PRELUDE           = "prelude";
+    /**
+     * 支持按脚本摘要复用已编译的脚本
+     */
+    public static final  String                   SCRIPT_CACHE      = "scriptCache";
+    /**
+     * 支持直接执行IDE编译好的脚本字节码
+     */
+    public static final  String                   EVAL_CLASS        = "evalClass";
+    /**
+     * agent 运行时的Groovy版本，格式：groovy:{版本号}，如 groovy:4.0.28
+     */
+    public static final  String                   GROOVY_VERSION    = "groovy:";
+    /**
+     * 协商超时时间(ms)，协商在首次请求前同步进行，不能按脚本执行时间等待
+     */
+    private static final int                      NEGOTIATE_TIMEOUT = 3000;
+    /**
+     * 旧版本agent没有能力接口时的响应码
+     */
+    private static final int                      LEGACY            = 404;
+    /**
+     * 协商失败后按原有协议处理的时长(ms)，期间不再请求能力接口，避免每次调用都等待超时
+     */
+    private static final long                     RETRY_INTERVAL    = 60_000;
+    /**
+     * key: addressUrl，协商成功或确认为旧版本agent的结果长期有效，协商失败的结果在重试间隔后失效
+     */
+    private static final Map<String, Negotiation> FEATURES          = new ConcurrentHashMap<>();
+
+    private AgentFeatures() {
+    }
+
+    /**
+     * 目标agent是否支持某项能力
+     *
+     * @param addressUrl 根路径
+     * @param feature    能力名称
+     * @return 是否支持
+     */
+    public static boolean supports(@NotNull String addressUrl, @NotNull String feature) {
+        return features(addressUrl).contains(feature);
+    }
+
+    /**
+     * 目标agent运行时的Groovy版本
+     *
+     * @param addressUrl 根路径
+     * @return 版本号，agent未声明时返回null
+     */
+    @Nullable
+    public static String getGroovyVersion(@NotNull String addressUrl) {
+        for (String feature : features(addressUrl)) {
+            if (feature.startsWith(GROOVY_VERSION)) {
+                return feature.substring(GROOVY_VERSION.length());
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static Set<String> features(@NotNull String addressUrl) {
+        Negotiation negotiation = FEATURES.get(addressUrl);
+        if (negotiation == null || negotiation.isExpired()) {
+            // 在缓存之外协商，避免慢agent阻塞其它目标的调用方；并发协商时以先写入的有效结果为准
+            Negotiation negotiated = negotiate(addressUrl);
+            negotiation = FEATURES.compute(addressUrl, (key, cached) -> cached == null || cached.isExpired() ? negotiated : cached);
+        }
+        return negotiation.features;
+    }
+
+    /**
+     * 清除目标agent的能力缓存
+     *
+     * @param addressUrl 根路径
+     */
+    public static void evict(@NotNull String addressUrl) {
+        FEATURES.remove(addressUrl);
+    }
+
+    /**
+     * 协商agent能力
+     *
+     * @param addressUrl 根路径
+     * @return 协商结果，旧版本agent为空集合；非200响应、连接失败等临时错误为短期有效的空集合
+     */
+    @NotNull
+    private static Negotiation negotiate(@NotNull String addressUrl) {
+        try {
+            Set<String> features = EarthHttpPool.get(addressUrl + "/api/console/features", NEGOTIATE_TIMEOUT, (response, body) -> {
+                if (response.statusCode() == LEGACY) {
+                    // 旧版本agent无此接口，按原有协议处理
+                    return Collections.<String>emptySet();
+                }
+                if (response.statusCode() != 200) {
+                    return null;
+                }
+                String result = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                return new HashSet<>(JSONObject.parseObject(result).getJSONArray("features").toJavaList(String.class));
+            });
+            if (features == null) {
+                logger.info("agent features negotiate failed, fallback to legacy protocol for " + RETRY_INTERVAL + "ms: " + addressUrl);
+                return Negotiation.retryLater();
+            }
+            logger.info("agent features " + addressUrl + ": " + features);
+            return new Negotiation(features, Long.MAX_VALUE);
+        } catch (Exception e) {
+            logger.info("agent features negotiate failed, fallback to legacy protocol for " + RETRY_INTERVAL + "ms: " + addressUrl);
+            return Negotiation.retryLater();
+        }
+    }
+
+    /**
+     * 协商结果
+     */
+    private static final class Negotiation {
+        private final Set<String> features;
+        /**
+         * 失效时间(System.nanoTime)，Long.MAX_VALUE 表示长期有效
+         */
+        private final long        expireAt;
+
+        Negotiation(@NotNull Set<String> features, long expireAt) {
+            this.features = features;
+            this.expireAt = expireAt;
+        }
+
+        static Negotiation retryLater() {
+            return new Negotiation(Collections.emptySet(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL));
+        }
+
+        boolean isExpired() {
+            return expireAt != Long.MAX_VALUE && System.nanoTime() - expireAt > 0;
+        }
+    }
+}
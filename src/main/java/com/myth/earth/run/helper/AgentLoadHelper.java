@@ -16,67 +16,121 @@
 package com.myth.earth.run.helper;
 
 import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
- * agent jar 加载
+ * agent jar 加载 <br/>
+ * <p>
+ * 按内容摘要安装：~/.jz-zhou/agent/earth-run-agent-{sha256}.jar，内置jar未变化时不再写入；
+ * 先写临时文件再原子重命名，多个IDE实例同时安装也不会读到写了一半的jar。
+ * 旧版本jar不删除，已挂载的目标jvm可能仍在使用。
  *
  * @author zhouchao
  * @date 2024-11-06 上午8:40
  */
 public class AgentLoadHelper {
-    private static final Logger logger        = Logger.getInstance(AgentLoadHelper.class);
-    private static final String LOG_AGENT_JAR = "earth-run-agent.jar";
+    private static final    Logger logger        = Logger.getInstance(AgentLoadHelper.class);
+    private static final    String LOG_AGENT_JAR = "earth-run-agent.jar";
+    /**
+     * 本次IDE运行期间已校验过的agent路径
+     */
+    private static volatile String agentPath;
 
     /**
-     * 加载agent后的路径
+     * 加载agent后的路径，首次调用时安装并校验，之后直接返回
      *
      * @return agent绝对路径
      */
     @Nullable
-    public static String loadAgent(boolean refresh) {
-        // 获取用户目录
-        String userHomeDir = System.getProperty("user.home");
-        // 构建目标目录路径
-        File targetDir = new File(userHomeDir, ".jz-zhou");
-        // 如果目标目录不存在，则创建它
-        if (!targetDir.exists() && !targetDir.mkdirs()) {
-            logger.info("Failed to create target directory: " + targetDir.getAbsolutePath());
-            return null;
+    public static String loadAgent() {
+        String path = agentPath;
+        if (path != null && Files.isRegularFile(Paths.get(path))) {
+            return path;
         }
-
-        // 构建目标文件路径
-        File targetFile = new File(targetDir, LOG_AGENT_JAR);
-        // 检查目标文件是否已经存在
-        if (!refresh && targetFile.exists()) {
-            logger.info("File already exists at: " + targetFile.getAbsolutePath());
-            return targetFile.getAbsolutePath();
+        synchronized (AgentLoadHelper.class) {
+            if (agentPath == null || !Files.isRegularFile(Paths.get(agentPath))) {
+                agentPath = install();
+            }
+            return agentPath;
         }
+    }
 
-        // 获取资源文件的输入流
-        InputStream resourceInputStream = AgentLoadHelper.class.getResourceAsStream("/lib/" + LOG_AGENT_JAR);
-        if (resourceInputStream == null) {
-            logger.info("Resource not found: /lib/earth-run-agent.jar");
+    @Nullable
+    private static String install() {
+        // 读取内置的agent jar
+        byte[] content;
+        try (InputStream resourceInputStream = AgentLoadHelper.class.getResourceAsStream("/lib/" + LOG_AGENT_JAR)) {
+            if (resourceInputStream == null) {
+                logger.info("Resource not found: /lib/earth-run-agent.jar");
+                return null;
+            }
+            content = resourceInputStream.readAllBytes();
+        } catch (IOException e) {
+            logger.warn("agent read failed.", e);
             return null;
         }
 
-        // 复制文件
-        try (BufferedInputStream bis = new BufferedInputStream(resourceInputStream);
-                BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(targetFile))) {
-            byte[] buffer = new byte[1024];
-            int length;
-            // 读取输入流并写入输出流
-            while ((length = bis.read(buffer)) > 0) {
-                bos.write(buffer, 0, length);
+        // 构建目标文件路径，文件名带内容摘要
+        String digest = sha256(content);
+        Path targetDir = Paths.get(System.getProperty("user.home"), ".jz-zhou", "agent");
+        Path targetFile = targetDir.resolve("earth-run-agent-" + digest + ".jar");
+        try {
+            Files.createDirectories(targetDir);
+            // 已安装且内容一致，无需再次写入
+            if (Files.isRegularFile(targetFile) && digest.equals(sha256(Files.readAllBytes(targetFile)))) {
+                logger.info("File already exists at: " + targetFile);
+                return targetFile.toString();
             }
-            logger.info("File copied successfully to: " + targetFile.getAbsolutePath());
-            return targetDir.getAbsolutePath();
+
+            Path tempFile = Files.createTempFile(targetDir, "earth-run-agent-", ".tmp");
+            try {
+                Files.write(tempFile, content);
+                moveAtomically(tempFile, targetFile);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            logger.info("File installed successfully to: " + targetFile);
+            return targetFile.toString();
         } catch (IOException e) {
-            logger.warn("agent load field.", e);
+            logger.warn("agent install failed.", e);
             return null;
         }
     }
 
+    private static void moveAtomically(@NotNull Path source, @NotNull Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException e) {
+            // 其他IDE实例已完成安装，文件名即内容摘要，内容相同
+            logger.info("File installed by another instance: " + target);
+        }
+    }
+
+    @NotNull
+    private static String sha256(@NotNull byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
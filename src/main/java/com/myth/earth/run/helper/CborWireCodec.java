@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.ObjectItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * CBOR(RFC 8949) 二进制格式，直接解码为 ObjectItem，不经过中间的 Map/List <br/>
+ * <p>
+ * 仅实现 ObjectItem 所需的子集：整数、浮点、字符串、数组、映射、布尔及null，忽略标签；未知字段整体跳过。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午10:20
+ */
+final class CborWireCodec implements WireCodec {
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES    = 2;
+    private static final int MAJOR_TEXT     = 3;
+    private static final int MAJOR_ARRAY    = 4;
+    private static final int MAJOR_MAP      = 5;
+    private static final int MAJOR_TAG      = 6;
+    private static final int MAJOR_SIMPLE   = 7;
+    private static final int SIMPLE_FALSE   = 20;
+    private static final int SIMPLE_TRUE    = 21;
+    private static final int SIMPLE_NULL    = 22;
+    private static final int INDEFINITE     = 31;
+    private static final int BREAK          = 0xff;
+    /**
+     * 单个字节串/文本串的长度上限：64MB，长度来自响应内容，超出时视为格式错误，避免按错误长度分配内存
+     */
+    private static final int MAX_STRING     = 64 * 1024 * 1024;
+
+    @NotNull
+    @Override
+    public String getContentType() {
+        return "application/cbor";
+    }
+
+    @Nullable
+    @Override
+    public ObjectItem readObject(@NotNull InputStream body) throws IOException {
+        Decoder decoder = new Decoder(body);
+        int head = decoder.peekHead();
+        return head < 0 ? null : decoder.readObjectItem(decoder.readHead());
+    }
+
+    @Override
+    public void readArray(@NotNull InputStream body, @NotNull Predicate<ObjectItem> consumer) throws IOException {
+        Decoder decoder = new Decoder(body);
+        if (decoder.peekHead() < 0) {
+            return;
+        }
+        int head = decoder.readHead();
+        if (head >>> 5 != MAJOR_ARRAY) {
+            decoder.skip(head);
+            return;
+        }
+        long length = decoder.readLength(head);
+        for (long i = 0; length < 0 || i < length; i++) {
+            int itemHead = decoder.readHead();
+            if (length < 0 && itemHead == BREAK) {
+                break;
+            }
+            WireCodec.checkInterrupted();
+            if (!consumer.test(decoder.readObjectItem(itemHead))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 单次响应的解码状态
+     */
+    private static class Decoder {
+        private final DataInputStream in;
+
+        Decoder(@NotNull InputStream body) {
+            this.in = new DataInputStream(new BufferedInputStream(body));
+        }
+
+        int peekHead() throws IOException {
+            in.mark(1);
+            int head = in.read();
+            in.reset();
+            return head;
+        }
+
+        int readHead() throws IOException {
+            return in.readUnsignedByte();
+        }
+
+        /**
+         * 读取参数值，不定长时返回-1
+         */
+        long readLength(int head) throws IOException {
+            int info = head & 0x1f;
+            if (info < 24) {
+                return info;
+            }
+            switch (info) {
+                case 24:
+                    return in.readUnsignedByte();
+                case 25:
+                    return in.readUnsignedShort();
+                case 26:
+                    return in.readInt() & 0xffffffffL;
+                case 27:
+                    long value = in.readLong();
+                    if (value < 0) {
+                        throw new IOException("CBOR 参数超出范围：" + Long.toUnsignedString(value));
+                    }
+                    return value;
+                case INDEFINITE:
+                    return -1;
+                default:
+                    throw new IOException("CBOR 格式错误：" + Integer.toHexString(head));
+            }
+        }
+
+        @Nullable
+        ObjectItem readObjectItem(int head) throws IOException {
+            head = skipTags(head);
+            if (isNull(head)) {
+                return null;
+            }
+            if (head >>> 5 != MAJOR_MAP) {
+                throw new IOException("CBOR 格式错误：期望对象，实际为 " + Integer.toHexString(head));
+            }
+            ObjectItem objectItem = new ObjectItem();
+            long length = readLength(head);
+            for (long i = 0; length < 0 || i < length; i++) {
+                int keyHead = readHead();
+                if (length < 0 && keyHead == BREAK) {
+                    break;
+                }
+                String key = readString(keyHead);
+                int valueHead = readHead();
+                if (key == null) {
+                    skip(valueHead);
+                    continue;
+                }
+                switch (key) {
+                    case "id":
+                        objectItem.setId(readString(valueHead));
+                        break;
+                    case "objectId":
+                        objectItem.setObjectId(readString(valueHead));
+                        break;
+                    case "type":
+                        objectItem.setType(readString(valueHead));
+                        break;
+                    case "flag":
+                        objectItem.setFlag(readString(valueHead));
+                        break;
+                    case "name":
+                        objectItem.setName(readString(valueHead));
+                        break;
+                    case "value":
+                        objectItem.setValue(readString(valueHead));
+                        break;
+                    case "path":
+                        objectItem.setPath(readString(valueHead));
+                        break;
+                    case "childSize":
+                        objectItem.setChildSize(isNull(valueHead) ? null : (int) readInteger(valueHead));
+                        break;
+                    case "atomic":
+                        objectItem.setAtomic("true".equals(readString(valueHead)));
+                        break;
+                    case "errorMessage":
+                        objectItem.setErrorMessage(readString(valueHead));
+                        break;
+                    case "errorStack":
+                        objectItem.setErrorStack(readString(valueHead));
+                        break;
+                    case "errorType":
+                        objectItem.setErrorType(readString(valueHead));
+                        break;
+                    case "children":
+                        objectItem.setChildren(readChildren(valueHead));
+                        break;
+                    default:
+                        skip(valueHead);
+                        break;
+                }
+            }
+            return objectItem;
+        }
+
+        @Nullable
+        private List<ObjectItem> readChildren(int head) throws IOException {
+            head = skipTags(head);
+            if (isNull(head)) {
+                return null;
+            }
+            if (head >>> 5 != MAJOR_ARRAY) {
+                throw new IOException("CBOR 格式错误：期望数组，实际为 " + Integer.toHexString(head));
+            }
+            long length = readLength(head);
+            List<ObjectItem> children = new ArrayList<>(length < 0 ? 16 : (int) Math.min(length, 1024));
+            for (long i = 0; length < 0 || i < length; i++) {
+                int itemHead = readHead();
+                if (length < 0 && itemHead == BREAK) {
+                    break;
+                }
+                ObjectItem child = readObjectItem(itemHead);
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+            return children;
+        }
+
+        /**
+         * 读取字符串，数值及布尔按文本返回，与 fastjson 的转换保持一致
+         */
+        @Nullable
+        private String readString(int head) throws IOException {
+            head = skipTags(head);
+            int major = head >>> 5;
+            switch (major) {
+                case MAJOR_TEXT:
+                    return new String(readBytes(head), StandardCharsets.UTF_8);
+                case MAJOR_UNSIGNED:
+                case MAJOR_NEGATIVE:
+                    return String.valueOf(readInteger(head));
+                case MAJOR_SIMPLE:
+                    return readSimple(head);
+                default:
+                    skip(head);
+                    return null;
+            }
+        }
+
+        @Nullable
+        private String readSimple(int head) throws IOException {
+            int info = head & 0x1f;
+            switch (info) {
+                case SIMPLE_FALSE:
+                    return "false";
+                case SIMPLE_TRUE:
+                    return "true";
+                case 24:
+                    // 单字节扩展的简单值没有对应的文本，读取后忽略
+                    in.readUnsignedByte();
+                    return null;
+                case 25:
+                    return String.valueOf(halfToFloat(in.readUnsignedShort()));
+                case 26:
+                    return String.valueOf(in.readFloat());
+                case 27:
+                    return String.valueOf(in.readDouble());
+                default:
+                    return null;
+            }
+        }
+
+        private long readInteger(int head) throws IOException {
+            head = skipTags(head);
+            long value = readLength(head);
+            if (head >>> 5 == MAJOR_NEGATIVE) {
+                return -1 - value;
+            }
+            if (head >>> 5 != MAJOR_UNSIGNED) {
+                throw new IOException("CBOR 格式错误：期望整数，实际为 " + Integer.toHexString(head));
+            }
+            return value;
+        }
+
+        /**
+         * 读取定长或分段的字节串/文本串内容
+         */
+        @NotNull
+        private byte[] readBytes(int head) throws IOException {
+            long length = readLength(head);
+            if (length >= 0) {
+                if (length > MAX_STRING) {
+                    throw new IOException("CBOR 字符串过长：" + length);
+                }
+                byte[] bytes = new byte[(int) length];
+                in.readFully(bytes);
+                return bytes;
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            for (int chunkHead = readHead(); chunkHead != BREAK; chunkHead = readHead()) {
+                if (chunkHead >>> 5 != head >>> 5 || (chunkHead & 0x1f) == INDEFINITE) {
+                    throw new IOException("CBOR 格式错误：分段类型不一致 " + Integer.toHexString(chunkHead));
+                }
+                byte[] chunk = readBytes(chunkHead);
+                if (bos.size() + (long) chunk.length > MAX_STRING) {
+                    throw new IOException("CBOR 字符串过长：" + (bos.size() + (long) chunk.length));
+                }
+                bos.write(chunk);
+            }
+            return bos.toByteArray();
+        }
+
+        /**
+         * 跳过一个完整的数据项
+         */
+        void skip(int head) throws IOException {
+            int major = head >>> 5;
+            switch (major) {
+                case MAJOR_UNSIGNED:
+                case MAJOR_NEGATIVE:
+                    readLength(head);
+                    break;
+                case MAJOR_BYTES:
+                case MAJOR_TEXT:
+                    readBytes(head);
+                    break;
+                case MAJOR_ARRAY:
+                case MAJOR_MAP:
+                    long length = readLength(head);
+                    int itemsPerEntry = major == MAJOR_MAP ? 2 : 1;
+                    for (long i = 0; length < 0 || i < length; i++) {
+                        int itemHead = readHead();
+                        if (length < 0 && itemHead == BREAK) {
+                            break;
+                        }
+                        skip(itemHead);
+                        for (int j = 1; j < itemsPerEntry; j++) {
+                            skip(readHead());
+                        }
+                    }
+                    break;
+                case MAJOR_TAG:
+                    readLength(head);
+                    skip(readHead());
+                    break;
+                default:
+                    skipSimple(head);
+                    break;
+            }
+        }
+
+        private void skipSimple(int head) throws IOException {
+            int info = head & 0x1f;
+            int bytes = info == 24 ? 1 : info == 25 ? 2 : info == 26 ? 4 : info == 27 ? 8 : 0;
+            if (in.skipBytes(bytes) != bytes) {
+                throw new EOFException();
+            }
+        }
+
+        /**
+         * 标签（如日期、大整数）不影响展示，直接读取其内容
+         */
+        private int skipTags(int head) throws IOException {
+            while (head >>> 5 == MAJOR_TAG) {
+                readLength(head);
+                head = readHead();
+            }
+            return head;
+        }
+
+        private boolean isNull(int head) {
+            return head == (MAJOR_SIMPLE << 5 | SIMPLE_NULL) || head == (MAJOR_SIMPLE << 5 | 23);
+        }
+
+        private static float halfToFloat(int half) {
+            int exponent = (half >>> 10) & 0x1f;
+            int mantissa = half & 0x3ff;
+            float value;
+            if (exponent == 0) {
+                value = (float) (mantissa * Math.pow(2, -24));
+            } else if (exponent != 31) {
+                value = (float) ((mantissa + 1024) * Math.pow(2, exponent - 25));
+            } else {
+                value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+            }
+            return (half & 0x8000) != 0 ? -value : value;
+        }
+    }
+}
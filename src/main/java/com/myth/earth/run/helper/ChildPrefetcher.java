@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.myth.earth.run.bean.ObjectItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 子节点预取 <br/>
+ * <p>
+ * 展开节点后，用户通常会继续展开前几个非原始类型的子节点；在后台单线程中提前获取这些子节点，
+ * 只占用连接池中的一个连接，不影响前台请求。结果按访问路径缓存，数量有限，切换会话或刷新结果后清空。
+ *
+ * @author zhouchao
+ * @date 2026-10-19 上午10:40
+ */
+public class ChildPrefetcher {
+    private static final Logger                        logger         = Logger.getInstance(ChildPrefetcher.class);
+    /**
+     * 每次展开后预取的子节点数量
+     */
+    private static final int                           PREFETCH_COUNT = 3;
+    /**
+     * 缓存的节点数量
+     */
+    private static final int                           CACHE_SIZE     = 64;
+    /**
+     * 超过该数量的集合不预取，展开时按区间加载
+     */
+    private static final int                           MAX_CHILD_SIZE = 1000;
+    private final        ExecutorService               executor       = AppExecutorUtil.createBoundedApplicationPoolExecutor("EarthRunHelper.Prefetch", 1);
+    /**
+     * key: ObjectItem.path，按访问顺序淘汰
+     */
+    private final        Map<String, List<ObjectItem>> cache          = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<ObjectItem>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    /**
+     * 正在预取的访问路径
+     */
+    private final        Set<String>                   loading        = new HashSet<>();
+    /**
+     * 缓存所属的会话
+     */
+    private              String                        sessionId;
+    /**
+     * 每次清空后递增，用于丢弃过期的预取结果
+     */
+    private              int                           generation;
+
+    /**
+     * 预取前几个可展开的子节点
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param projection 当前结果的投影/过滤表达式
+     * @param children   刚展开的子节点
+     */
+    public void prefetch(@NotNull String addressUrl, @NotNull String sessionId, @Nullable String projection, @NotNull List<ObjectItem> children) {
+        int count = 0;
+        for (ObjectItem child : children) {
+            if (count >= PREFETCH_COUNT) {
+                break;
+            }
+            if (!isExpandable(child)) {
+                continue;
+            }
+            count++;
+            String path = child.getPath();
+            int current;
+            synchronized (this) {
+                switchSession(sessionId);
+                if (cache.containsKey(path) || !loading.add(path)) {
+                    continue;
+                }
+                current = generation;
+            }
+            executor.execute(() -> load(addressUrl, sessionId, projection, child, path, current));
+        }
+    }
+
+    /**
+     * 取出预取的子节点，取出后从缓存中移除（已挂载到树上）
+     *
+     * @param sessionId 会话ID
+     * @param path      访问路径
+     * @return 子节点，未预取时返回null
+     */
+    @Nullable
+    public synchronized List<ObjectItem> take(@Nullable String sessionId, @Nullable String path) {
+        if (sessionId == null || path == null || !sessionId.equals(this.sessionId)) {
+            return null;
+        }
+        return cache.remove(path);
+    }
+
+    /**
+     * 清空缓存，进行中的预取结果将被丢弃
+     */
+    public synchronized void clear() {
+        generation++;
+        cache.clear();
+        loading.clear();
+    }
+
+    private void load(@NotNull String addressUrl, @NotNull String sessionId, @Nullable String projection, @NotNull ObjectItem objectItem, @NotNull String path,
+                      int current) {
+        synchronized (this) {
+            if (current != generation) {
+                return;
+            }
+        }
+        try {
+            List<ObjectItem> children = EarthHttpHelper.detail(addressUrl, sessionId, objectItem, projection);
+            synchronized (this) {
+                if (current == generation) {
+                    cache.put(path, children);
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("prefetch child node failed: " + path, e);
+        } finally {
+            synchronized (this) {
+                if (current == generation) {
+                    loading.remove(path);
+                }
+            }
+        }
+    }
+
+    private void switchSession(@NotNull String sessionId) {
+        if (!sessionId.equals(this.sessionId)) {
+            clear();
+            this.sessionId = sessionId;
+        }
+    }
+
+    private static boolean isExpandable(@NotNull ObjectItem objectItem) {
+        if (objectItem.isAtomic() || objectItem.getPath() == null) {
+            return false;
+        }
+        if (objectItem.getChildren() != null && !objectItem.getChildren().isEmpty()) {
+            return false;
+        }
+        Integer childSize = objectItem.getChildSize();
+        return childSize == null || (childSize > 0 && childSize <= MAX_CHILD_SIZE);
+    }
+}
@@ -15,18 +15,25 @@
 
 package com.myth.earth.run.helper;
 
-import cn.hutool.http.HttpUtil;
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.myth.earth.run.bean.ClassloaderInfo;
+import com.myth.earth.run.bean.CompiledScript;
+import com.myth.earth.run.bean.EvalBudget;
 import com.myth.earth.run.bean.ObjectItem;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * agent 请求接口列表
@@ -35,7 +42,36 @@ import java.util.Optional;
  * @date 2024-11-18 下午6:22
  */
 public class EarthHttpHelper {
+    /**
+     * 脚本超过该长度(字符)时压缩请求体
+     */
+    private static final int GZIP_THRESHOLD    = 8 * 1024;
+    /**
+     * 探测agent是否可用的超时时间(ms)
+     */
+    private static final int HEALTH_TIMEOUT    = 500;
+    /**
+     * 中断请求的超时时间(ms)
+     */
+    private static final int INTERRUPT_TIMEOUT = 3000;
+    /**
+     * 流式解析子节点时每批回调的数量
+     */
+    private static final int DETAIL_BATCH      = 200;
+    /**
+     * 仅提交摘要时，agent未缓存该脚本返回的状态码
+     */
+    private static final int SCRIPT_MISS       = 404;
 
+    /**
+     * agent 是否可用，用于复用已常驻的agent
+     *
+     * @param addressUrl 根路径
+     * @return 是否可用
+     */
+    public static boolean isHealthy(@NotNull String addressUrl) {
+        return EarthHttpPool.probe(addressUrl + "/api/console/appClassLoader", HEALTH_TIMEOUT);
+    }
 
     /**
      * 获取AppClassLoader类加载器
@@ -44,7 +80,7 @@ public class EarthHttpHelper {
      * @return 类加载器地址
      */
     public static String getAppClassLoader(@NotNull String addressUrl) {
-        return HttpUtil.get(addressUrl + "/api/console/appClassLoader");
+        return EarthHttpPool.get(addressUrl + "/api/console/appClassLoader");
     }
 
     /**
@@ -55,8 +91,7 @@ public class EarthHttpHelper {
      * @param code       代码内容
      */
     public static void debug(@NotNull String addressUrl, @NotNull String loaderId, @NotNull String code) {
-        String encode = URLEncoder.encode(code, StandardCharsets.UTF_8);
-        HttpUtil.get(addressUrl + "/api/console/debug?loaderId=" + loaderId + "&code=" + encode);
+        submitScript(addressUrl, "/api/console/debug?loaderId=" + loaderId, code);
     }
 
     /**
@@ -66,7 +101,7 @@ public class EarthHttpHelper {
      * @return 类加载器信息
      */
     public static List<ClassloaderInfo> getAllClassLoaders(@NotNull String addressUrl) {
-        String result = HttpUtil.get(addressUrl + "/api/console/allClassLoader");
+        String result = EarthHttpPool.get(addressUrl + "/api/console/allClassLoader");
         return JSON.parseArray(result, ClassloaderInfo.class);
     }
 
@@ -77,7 +112,23 @@ public class EarthHttpHelper {
      * @param sessionId sessionId
      */
     public static void closeSession(@NotNull String addressUrl , @NotNull String sessionId) {
-        HttpUtil.get(addressUrl + "/api/console/close?sessionId=" + sessionId);
+        EarthHttpPool.get(addressUrl + "/api/console/close?sessionId=" + sessionId);
+    }
+
+    /**
+     * 中断会话中正在执行的脚本
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @return false: agent不支持中断
+     */
+    public static boolean interrupt(@NotNull String addressUrl, @NotNull String sessionId) {
+        if (!AgentFeatures.supports(addressUrl, AgentFeatures.INTERRUPT)) {
+            return false;
+        }
+        // 并发名额可能正被待中断的脚本占用，中断请求不排队
+        EarthHttpPool.getUrgent(addressUrl + "/api/console/interrupt?sessionId=" + sessionId, INTERRUPT_TIMEOUT);
+        return true;
     }
 
     /**
@@ -88,10 +139,26 @@ public class EarthHttpHelper {
      * @return sessionId
      */
     public static String openSession(@NotNull String addressUrl,@NotNull String classloaderId) {
-        String result = HttpUtil.get(addressUrl + "/api/console/open?loaderId=" + classloaderId);
+        String result = EarthHttpPool.get(addressUrl + "/api/console/open?loaderId=" + classloaderId);
         return JSONObject.parseObject(result).getString("sessionId");
     }
 
+    /**
+     * 登记会话前置脚本，之后每次执行无需再携带
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param prelude    前置脚本
+     * @return false: agent不支持前置脚本
+     */
+    public static boolean registerPrelude(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String prelude) {
+        if (!AgentFeatures.supports(addressUrl, AgentFeatures.PRELUDE)) {
+            return false;
+        }
+        submitScript(addressUrl, "/api/console/prelude?sessionId=" + sessionId, prelude);
+        return true;
+    }
+
     /**
      * 执行代码
      *
@@ -101,15 +168,366 @@ public class EarthHttpHelper {
      * @return 执行结果
      */
     public static ObjectItem eval(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String groovyCode) {
-        String encode = URLEncoder.encode(groovyCode, StandardCharsets.UTF_8);
-        String result = HttpUtil.get(addressUrl + "/api/console/eval?sessionId=" + sessionId + "&code=" + encode);
-        return JSONObject.parseObject(result, ObjectItem.class);
+        String accept = WireCodec.of(addressUrl).getContentType();
+        return submitScript(addressUrl, "/api/console/eval?sessionId=" + sessionId, groovyCode, accept, EarthHttpHelper::readObjectItem);
     }
 
-    public static List<ObjectItem> detail(String addressUrl,@NotNull String sessionId, ObjectItem objectItem) {
-        String path = URLEncoder.encode(objectItem.getPath(), StandardCharsets.UTF_8);
+    /**
+     * 在资源限制下执行代码，agent不支持时按无限制执行
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param groovyCode 执行代码
+     * @param evalBudget 资源限制
+     * @param projection 投影/过滤表达式，为空或agent不支持时返回完整结果
+     * @return 执行结果，超出限制时通过错误字段返回
+     */
+    public static ObjectItem eval(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String groovyCode, @NotNull EvalBudget evalBudget,
+                                  @Nullable String projection) {
+        StringBuilder api = evalApi("/api/console/eval", addressUrl, sessionId, evalBudget, projection);
+        String accept = WireCodec.of(addressUrl).getContentType();
+        if (!AgentFeatures.supports(addressUrl, AgentFeatures.SCRIPT_CACHE)) {
+            return submitScript(addressUrl, api.toString(), groovyCode, accept, EarthHttpHelper::readObjectItem);
+        }
+
+        // 先只提交摘要，agent命中时直接运行已编译的脚本，未命中时不执行并返回 SCRIPT_MISS
+        String digest = ScriptDigests.digest(groovyCode);
+        api.append("&digest=").append(digest);
+        if (ScriptDigests.contains(addressUrl, sessionId, digest)) {
+            boolean[] miss = new boolean[1];
+            ObjectItem result = EarthHttpPool.get(addressUrl + api, accept, (response, body) -> {
+                if (response.statusCode() == SCRIPT_MISS) {
+                    miss[0] = true;
+                    return null;
+                }
+                return readObjectItem(response, body);
+            });
+            if (!miss[0]) {
+                return result;
+            }
+            ScriptDigests.remove(addressUrl, sessionId, digest);
+        }
+        // 连同源码提交，agent编译后按摘要缓存
+        ObjectItem result = submitScript(addressUrl, api.toString(), groovyCode, accept, EarthHttpHelper::readObjectItem);
+        ScriptDigests.add(addressUrl, sessionId, digest);
+        return result;
+    }
+
+    /**
+     * 执行IDE中编译好的脚本，目标JVM只需定义类并运行
+     *
+     * @param addressUrl     根路径
+     * @param sessionId      会话ID
+     * @param compiledScript 编译结果
+     * @param evalBudget     资源限制
+     * @param projection     投影/过滤表达式
+     * @return 执行结果
+     */
+    public static ObjectItem evalClass(@NotNull String addressUrl, @NotNull String sessionId, @NotNull CompiledScript compiledScript, @NotNull EvalBudget evalBudget,
+                                       @Nullable String projection) {
+        JSONObject classes = new JSONObject();
+        compiledScript.getClasses().forEach((name, bytes) -> classes.put(name, Base64.getEncoder().encodeToString(bytes)));
+        JSONObject payload = new JSONObject();
+        payload.put("mainClass", compiledScript.getMainClass());
+        payload.put("classes", classes);
+
+        String content = payload.toJSONString();
+        String api = evalApi("/api/console/evalClass", addressUrl, sessionId, evalBudget, projection).toString();
+        boolean gzip = content.length() > GZIP_THRESHOLD && AgentFeatures.supports(addressUrl, AgentFeatures.GZIP);
+        return EarthHttpPool.post(addressUrl + api, content, gzip, WireCodec.of(addressUrl).getContentType(), EarthHttpHelper::readObjectItem);
+    }
+
+    /**
+     * 执行接口地址，附带资源限制及投影参数
+     */
+    private static StringBuilder evalApi(@NotNull String path, @NotNull String addressUrl, @NotNull String sessionId, @NotNull EvalBudget evalBudget,
+                                         @Nullable String projection) {
+        StringBuilder api = new StringBuilder(path).append("?sessionId=").append(sessionId);
+        if (evalBudget.isLimited() && AgentFeatures.supports(addressUrl, AgentFeatures.BUDGET)) {
+            api.append("&wallTimeout=").append(evalBudget.getWallTimeout()).append("&cpuTimeout=").append(evalBudget.getCpuTimeout())
+               .append("&allocatedMb=").append(evalBudget.getAllocatedMb());
+        }
+        return api.append(projectionParam(addressUrl, projection));
+    }
+
+    /**
+     * 获取对象的子节点
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @return 子节点
+     */
+    public static List<ObjectItem> detail(String addressUrl, @NotNull String sessionId, ObjectItem objectItem) {
+        return detail(addressUrl, sessionId, objectItem, (String) null);
+    }
+
+    /**
+     * 获取对象的子节点
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @param projection 投影/过滤表达式，为空时返回全部子节点
+     * @return 子节点
+     */
+    public static List<ObjectItem> detail(String addressUrl, @NotNull String sessionId, ObjectItem objectItem, @Nullable String projection) {
+        List<ObjectItem> objectItems = new ArrayList<>();
+        detail(addressUrl, sessionId, objectItem, projection, objectItems::addAll);
+        return objectItems;
+    }
+
+    /**
+     * 获取对象的子节点，边接收边分批回调
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @param projection 投影/过滤表达式，为空时返回全部子节点
+     * @param consumer   每批子节点的回调，在请求线程中执行
+     */
+    public static void detail(String addressUrl, @NotNull String sessionId, ObjectItem objectItem, @Nullable String projection,
+                              @NotNull Consumer<List<ObjectItem>> consumer) {
         Integer size = Optional.ofNullable(objectItem.getChildSize()).filter(i -> i > 20).orElse(-1);
-        String result = HttpUtil.get(addressUrl + "/api/console/detail?sessionId=" + sessionId + "&objectPath=" + path + "&begin=-1&size=" + size + "&level=0");
-        return JSONArray.parseArray(result, ObjectItem.class);
+        detail(addressUrl, sessionId, objectItem, -1, size, projection, consumer);
+    }
+
+    /**
+     * 分段获取集合对象的子节点
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @param begin      起始下标，-1表示从头开始
+     * @param size       获取数量，-1表示agent默认数量
+     * @return 子节点
+     */
+    public static List<ObjectItem> detail(String addressUrl, @NotNull String sessionId, ObjectItem objectItem, int begin, int size) {
+        List<ObjectItem> objectItems = new ArrayList<>();
+        detail(addressUrl, sessionId, objectItem, begin, size, null, objectItems::addAll);
+        return objectItems;
+    }
+
+    /**
+     * 分段获取集合对象的子节点，边接收边分批回调
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @param begin      起始下标，-1表示从头开始
+     * @param size       获取数量，-1表示agent默认数量
+     * @param projection 投影/过滤表达式，为空时返回全部子节点；分段按过滤后的结果计算
+     * @param consumer   每批子节点的回调，在请求线程中执行
+     */
+    public static void detail(String addressUrl, @NotNull String sessionId, ObjectItem objectItem, int begin, int size, @Nullable String projection,
+                              @NotNull Consumer<List<ObjectItem>> consumer) {
+        String path = URLEncoder.encode(objectItem.getPath(), StandardCharsets.UTF_8);
+        String url = addressUrl + "/api/console/detail?sessionId=" + sessionId + "&objectPath=" + path + "&begin=" + begin + "&size=" + size + "&level=0"
+                + projectionParam(addressUrl, projection);
+        EarthHttpPool.get(url, WireCodec.of(addressUrl).getContentType(), (response, body) -> readObjectItems(response, body, objectItem, Integer.MAX_VALUE, consumer));
+    }
+
+    /**
+     * 一次请求获取多层子节点，子节点的 children 按层级填充 <br/>
+     * <p>
+     * 节点数量及响应大小超出上限时停止解析，已解析的部分照常回调；agent 未按上限截断时由插件侧保证不超出。 <br/>
+     * 向agent多请求一个节点，收到超出上限的节点才认为结果被截断，节点数恰好等于上限时仍为完整结果。
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @param objectItem 父节点
+     * @param level      获取的层数，0表示仅获取直接子节点
+     * @param maxNodes   节点数量上限（包含所有层级）
+     * @param maxBytes   响应大小上限(byte)
+     * @param projection 投影/过滤表达式，为空时返回全部子节点
+     * @param consumer   每批子节点的回调，在请求线程中执行
+     * @return false: 超出上限，结果不完整
+     */
+    public static boolean detailTree(String addressUrl, @NotNull String sessionId, ObjectItem objectItem, int level, int maxNodes, long maxBytes,
+                                     @Nullable String projection, @NotNull Consumer<List<ObjectItem>> consumer) {
+        String path = URLEncoder.encode(objectItem.getPath(), StandardCharsets.UTF_8);
+        String url = addressUrl + "/api/console/detail?sessionId=" + sessionId + "&objectPath=" + path + "&begin=-1&size=-1&level=" + level + "&maxNodes=" + (maxNodes + 1)
+                + "&maxBytes=" + maxBytes + projectionParam(addressUrl, projection);
+        return EarthHttpPool.get(url, WireCodec.of(addressUrl).getContentType(), (response, body) -> {
+            try {
+                return readObjectItems(response, new LimitedInputStream(body, maxBytes), objectItem, maxNodes, consumer);
+            } catch (IOException | RuntimeException e) {
+                // fastjson 会将读取异常包装为 JSONException
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof LimitExceededException) {
+                        return false;
+                    }
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * 投影/过滤表达式参数，在agent侧序列化前求值，仅传回命中的部分
+     *
+     * @return 表达式为空或agent不支持时返回空串
+     */
+    private static String projectionParam(@NotNull String addressUrl, @Nullable String projection) {
+        if (projection == null || projection.isBlank() || !AgentFeatures.supports(addressUrl, AgentFeatures.PROJECTION)) {
+            return "";
+        }
+        return "&projection=" + URLEncoder.encode(projection.trim(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 直接从响应流解析执行结果，不再先读取为完整字符串
+     */
+    private static ObjectItem readObjectItem(@NotNull EarthHttpPool.AgentResponse response, @NotNull InputStream body) throws IOException {
+        ObjectItem objectItem = WireCodec.of(response).readObject(body);
+        if (objectItem != null) {
+            objectItem.compact();
+        }
+        return objectItem;
+    }
+
+    /**
+     * 逐个解析子节点数组，每满一批回调一次；节点数量达到上限后不再挂载，跨越上限的子节点只保留上限以内的子孙节点
+     *
+     * @return false: 节点数量超出上限，结果不完整
+     */
+    static boolean readObjectItems(@NotNull EarthHttpPool.AgentResponse response, @NotNull InputStream body, @NotNull ObjectItem parent, int maxNodes,
+                                   @NotNull Consumer<List<ObjectItem>> consumer) throws IOException {
+        List<ObjectItem> batch = new ArrayList<>(DETAIL_BATCH);
+        int[] remaining = {maxNodes};
+        boolean[] truncated = new boolean[1];
+        String parentPath = parent.getPath();
+        try {
+            WireCodec.of(response).readArray(body, child -> {
+                if (child == null) {
+                    return true;
+                }
+                // 名额已用完仍有后续节点
+                if (remaining[0] == 0) {
+                    truncated[0] = true;
+                    return false;
+                }
+                int kept = limitNodes(child, remaining[0]);
+                if (kept < 0) {
+                    truncated[0] = true;
+                    kept = remaining[0];
+                }
+                remaining[0] -= kept;
+                child.attachTo(parent, parentPath);
+                child.compact();
+                batch.add(child);
+                if (batch.size() == DETAIL_BATCH) {
+                    consumer.accept(new ArrayList<>(batch));
+                    batch.clear();
+                }
+                return !truncated[0];
+            });
+        } finally {
+            // 响应大小超出上限中断解析时，已解析的部分照常回调
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+        }
+        return !truncated[0];
+    }
+
+    /**
+     * 按名额保留节点及其子孙节点，先序遍历，名额用完后移除其余子孙节点
+     *
+     * @param objectItem 节点
+     * @param limit      可保留的节点数量，至少为1
+     * @return 保留的节点数量，有子孙节点被移除时返回-1
+     */
+    private static int limitNodes(@NotNull ObjectItem objectItem, int limit) {
+        List<ObjectItem> children = objectItem.getChildren();
+        if (children == null) {
+            return 1;
+        }
+        int count = 1;
+        for (int i = 0; i < children.size(); i++) {
+            int kept = count < limit ? limitNodes(children.get(i), limit - count) : 0;
+            if (kept <= 0) {
+                // 当前子节点本身保留，仅其子孙节点被移除
+                objectItem.setChildren(new ArrayList<>(children.subList(0, kept < 0 ? i + 1 : i)));
+                return -1;
+            }
+            count += kept;
+        }
+        return count;
+    }
+
+    /**
+     * 提交脚本，agent支持时通过请求体提交（较大时压缩），否则退回 GET 参数
+     *
+     * @param addressUrl 根路径
+     * @param api        接口及参数
+     * @param code       脚本内容
+     * @return 响应内容
+     */
+    private static String submitScript(@NotNull String addressUrl, @NotNull String api, @NotNull String code) {
+        return submitScript(addressUrl, api, code, null, (response, body) -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 提交脚本，并在响应流上直接解析结果
+     *
+     * @param addressUrl 根路径
+     * @param api        接口及参数
+     * @param code       脚本内容
+     * @param accept     期望的响应格式，为空时不声明
+     * @param reader     响应解析
+     * @return 解析结果
+     */
+    private static <T> T submitScript(@NotNull String addressUrl, @NotNull String api, @NotNull String code, @Nullable String accept,
+                                      @NotNull EarthHttpPool.ResponseReader<T> reader) {
+        if (AgentFeatures.supports(addressUrl, AgentFeatures.POST_SCRIPT)) {
+            boolean gzip = code.length() > GZIP_THRESHOLD && AgentFeatures.supports(addressUrl, AgentFeatures.GZIP);
+            return EarthHttpPool.post(addressUrl + api, code, gzip, accept, reader);
+        }
+        String encode = URLEncoder.encode(code, StandardCharsets.UTF_8);
+        return EarthHttpPool.get(addressUrl + api + "&code=" + encode, accept, reader);
+    }
+
+    /**
+     * 响应大小超出上限
+     */
+    private static class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(long maxBytes) {
+            super("响应超出大小上限：" + maxBytes + " byte");
+        }
+    }
+
+    /**
+     * 限制读取的字节数，超出时抛出 {@link LimitExceededException}
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private       long remaining;
+
+        LimitedInputStream(@NotNull InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.remaining = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0 && --remaining < 0) {
+                throw new LimitExceededException(maxBytes);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0 && (remaining -= n) < 0) {
+                throw new LimitExceededException(maxBytes);
+            }
+            return n;
+        }
     }
 }
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.myth.earth.run.bean.HttpPoolConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * agent 连接池，按目标jvm复用 keep-alive 连接 <br/>
+ * <p>
+ * 每个目标地址持有独立的连接：TCP 地址(http://host:port)使用 HttpClient，空闲连接由 HttpClient 自行保活；
+ * Unix Domain Socket 地址(http+unix://{socket路径}) 使用 {@link UnixSocketTransport}。
+ * 并发请求数受 {@link HttpPoolConfig#getMaxConnections()} 限制，也就限制了目标上的连接数量。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午3:20
+ */
+public final class EarthHttpPool {
+    private static final Logger                  logger = Logger.getInstance(EarthHttpPool.class);
+    /**
+     * key: scheme://authority
+     */
+    private static final Map<String, TargetPool> POOLS  = new ConcurrentHashMap<>();
+    private static volatile HttpPoolConfig       config = new HttpPoolConfig();
+
+    private EarthHttpPool() {
+    }
+
+    /**
+     * 更新连接池配置（应用级），配置变化时停用已有连接池，下次请求按新配置重建；进行中的请求不受影响，完成后再释放连接
+     *
+     * @param newConfig 连接池配置
+     */
+    public static void configure(@NotNull HttpPoolConfig newConfig) {
+        if (newConfig.equals(config)) {
+            return;
+        }
+        config = newConfig;
+        POOLS.forEach((key, pool) -> {
+            if (POOLS.remove(key, pool)) {
+                pool.retire();
+            }
+        });
+    }
+
+    /**
+     * 目标jvm下线后释放对应的连接
+     *
+     * @param addressUrl 根路径
+     */
+    public static void evict(@NotNull String addressUrl) {
+        AgentFeatures.evict(addressUrl);
+        TargetPool pool = POOLS.remove(targetKey(URI.create(addressUrl)));
+        if (pool != null) {
+            pool.retire();
+            logger.info("release agent connection pool: " + pool.key);
+        }
+    }
+
+    /**
+     * GET 请求，返回响应内容
+     *
+     * @param url 完整请求地址
+     * @return 响应内容
+     */
+    @NotNull
+    public static String get(@NotNull String url) {
+        return get(url, EarthHttpPool::readString);
+    }
+
+    /**
+     * GET 请求，边接收边解析响应内容
+     *
+     * @param url    完整请求地址
+     * @param reader 响应解析
+     * @return 解析结果
+     */
+    public static <T> T get(@NotNull String url, @NotNull ResponseReader<T> reader) {
+        return get(url, null, reader);
+    }
+
+    /**
+     * GET 请求，声明期望的响应格式，边接收边解析响应内容
+     *
+     * @param url    完整请求地址
+     * @param accept 期望的响应格式，为空时不声明
+     * @param reader 响应解析
+     * @return 解析结果
+     */
+    public static <T> T get(@NotNull String url, @Nullable String accept, @NotNull ResponseReader<T> reader) {
+        AgentRequest request = new AgentRequest("GET", URI.create(url), config.getReadTimeout());
+        request.header("Accept", accept);
+        return exchange(request, reader);
+    }
+
+    /**
+     * GET 请求，指定超时时间，边接收边解析响应内容
+     *
+     * @param url           完整请求地址
+     * @param timeoutMillis 超时时间(ms)
+     * @param reader        响应解析
+     * @return 解析结果
+     */
+    public static <T> T get(@NotNull String url, int timeoutMillis, @NotNull ResponseReader<T> reader) {
+        AgentRequest request = new AgentRequest("GET", URI.create(url), timeoutMillis);
+        return exchange(request, reader);
+    }
+
+    /**
+     * GET 请求，不占用并发名额，用于中断等需要立即送达的短请求 <br/>
+     * <p>
+     * 并发名额可能全部被长时间执行的脚本占用，此类请求不排队，直接使用新的连接发送。
+     *
+     * @param url           完整请求地址
+     * @param timeoutMillis 超时时间(ms)
+     * @return 响应内容
+     */
+    @NotNull
+    public static String getUrgent(@NotNull String url, int timeoutMillis) {
+        AgentRequest request = new AgentRequest("GET", URI.create(url), timeoutMillis);
+        return exchange(request, EarthHttpPool::readString, false);
+    }
+
+    /**
+     * 探测地址是否可用
+     *
+     * @param url           完整请求地址
+     * @param timeoutMillis 超时时间(ms)
+     * @return 响应码为200时可用
+     */
+    public static boolean probe(@NotNull String url, int timeoutMillis) {
+        AgentRequest request = new AgentRequest("GET", URI.create(url), timeoutMillis);
+        try {
+            return exchange(request, (response, body) -> {
+                // 读完响应内容，连接才能继续复用
+                body.transferTo(OutputStream.nullOutputStream());
+                return response.statusCode() == 200;
+            });
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * POST 请求，以文本作为请求体
+     *
+     * @param url  完整请求地址
+     * @param text 请求体内容
+     * @param gzip 是否压缩请求体
+     * @return 响应内容
+     */
+    @NotNull
+    public static String post(@NotNull String url, @NotNull String text, boolean gzip) {
+        return post(url, text, gzip, null, EarthHttpPool::readString);
+    }
+
+    /**
+     * POST 请求，以文本作为请求体，边接收边解析响应内容
+     *
+     * @param url    完整请求地址
+     * @param text   请求体内容
+     * @param gzip   是否压缩请求体
+     * @param accept 期望的响应格式，为空时不声明
+     * @param reader 响应解析
+     * @return 解析结果
+     */
+    public static <T> T post(@NotNull String url, @NotNull String text, boolean gzip, @Nullable String accept, @NotNull ResponseReader<T> reader) {
+        AgentRequest request = new AgentRequest("POST", URI.create(url), config.getReadTimeout());
+        request.body = text.getBytes(StandardCharsets.UTF_8);
+        request.header("Content-Type", "text/plain; charset=UTF-8");
+        if (gzip) {
+            request.body = gzip(request.body);
+            request.header("Content-Encoding", "gzip");
+        }
+        request.header("Accept", accept);
+        return exchange(request, reader);
+    }
+
+    @NotNull
+    private static byte[] gzip(@NotNull byte[] bytes) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("压缩请求内容失败", e);
+        }
+        return bos.toByteArray();
+    }
+
+    @NotNull
+    private static String readString(@NotNull AgentResponse response, @NotNull InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 占用目标agent的并发名额发送请求，名额已满时排队等待至超时
+     *
+     * @param request 请求
+     * @param reader  响应解析
+     * @return 解析结果
+     */
+    private static <T> T exchange(@NotNull AgentRequest request, @NotNull ResponseReader<T> reader) {
+        return exchange(request, reader, true);
+    }
+
+    /**
+     * 发送请求并在占用连接期间解析响应流，解析完成后才归还连接
+     *
+     * @param request   请求
+     * @param reader    响应解析
+     * @param usePermit 是否占用并发名额
+     * @return 解析结果
+     */
+    private static <T> T exchange(@NotNull AgentRequest request, @NotNull ResponseReader<T> reader, boolean usePermit) {
+        URI uri = request.uri;
+        TargetPool pool = enterPool(uri);
+        try {
+            return exchange(pool, request, reader, usePermit);
+        } finally {
+            pool.exit();
+        }
+    }
+
+    private static <T> T exchange(@NotNull TargetPool pool, @NotNull AgentRequest request, @NotNull ResponseReader<T> reader, boolean usePermit) {
+        URI uri = request.uri;
+        if (usePermit) {
+            try {
+                if (!pool.permits.tryAcquire(pool.acquireTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new IllegalStateException("等待agent连接超时，并发请求数已达上限：" + uri.getPath());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("请求agent被中断：" + uri.getPath(), e);
+            }
+        }
+        request.header("Accept-Encoding", "gzip");
+        try (AgentResponse response = pool.transport.send(request)) {
+            try (InputStream body = decode(response)) {
+                return reader.read(response, body);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("请求agent失败：" + uri.getPath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("请求agent被中断：" + uri.getPath(), e);
+        } finally {
+            if (usePermit) {
+                pool.permits.release();
+            }
+        }
+    }
+
+    /**
+     * 获取目标的连接池并登记一个进行中的请求，取到的连接池恰好被停用时改用新建的连接池
+     */
+    @NotNull
+    private static TargetPool enterPool(@NotNull URI uri) {
+        while (true) {
+            TargetPool pool = POOLS.computeIfAbsent(targetKey(uri), key -> new TargetPool(key, uri, config));
+            if (pool.enter()) {
+                return pool;
+            }
+        }
+    }
+
+    @NotNull
+    private static InputStream decode(@NotNull AgentResponse response) throws IOException {
+        return "gzip".equalsIgnoreCase(response.header("Content-Encoding")) ? new GZIPInputStream(response.body) : response.body;
+    }
+
+    @NotNull
+    private static String targetKey(@NotNull URI uri) {
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    /**
+     * 单个目标jvm的连接池
+     */
+    private static class TargetPool {
+        private final String         key;
+        private final AgentTransport transport;
+        private final Semaphore      permits;
+        private final int            acquireTimeout;
+        /**
+         * 进行中的请求数
+         */
+        private       int            active;
+        /**
+         * 已停用，不再接收新请求，进行中的请求全部完成后释放连接
+         */
+        private       boolean        retired;
+
+        TargetPool(@NotNull String key, @NotNull URI uri, @NotNull HttpPoolConfig config) {
+            this.key = key;
+            this.transport = UnixSocketTransport.SCHEME.equals(uri.getScheme())
+                             ? new UnixSocketTransport(uri.getAuthority())
+                             : new HttpClientTransport(config);
+            this.permits = new Semaphore(Math.max(config.getMaxConnections(), 1), true);
+            this.acquireTimeout = Math.max(config.getAcquireTimeout(), 1);
+        }
+
+        synchronized boolean enter() {
+            if (retired) {
+                return false;
+            }
+            active++;
+            return true;
+        }
+
+        void exit() {
+            synchronized (this) {
+                active--;
+                if (!retired || active > 0) {
+                    return;
+                }
+            }
+            transport.close();
+        }
+
+        void retire() {
+            synchronized (this) {
+                retired = true;
+                if (active > 0) {
+                    return;
+                }
+            }
+            transport.close();
+        }
+    }
+
+    /**
+     * 请求传输方式
+     */
+    interface AgentTransport {
+
+        /**
+         * 发送请求，返回的响应关闭后连接才可复用
+         *
+         * @param request 请求
+         * @return 响应
+         * @throws IOException          请求失败
+         * @throws InterruptedException 请求被中断
+         */
+        @NotNull
+        AgentResponse send(@NotNull AgentRequest request) throws IOException, InterruptedException;
+
+        /**
+         * 释放连接，之后不再发送请求
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * 基于 HttpClient 的 TCP 传输 <br/>
+     * <p>
+     * HttpClient 在 Java 21 之前没有关闭方法，其连接由内部的选择器线程持有，客户端不可达后随之退出并关闭连接；
+     * 关闭时丢弃客户端引用并停止其回调线程池，Java 21+ 上同时调用 shutdownNow 立即关闭连接。
+     */
+    private static class HttpClientTransport implements AgentTransport {
+        private final    ExecutorService executor;
+        private volatile HttpClient      client;
+
+        HttpClientTransport(@NotNull HttpPoolConfig config) {
+            this.executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "earth-http-client");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // agent 为普通http服务，固定 HTTP/1.1 避免 h2c 升级协商
+            this.client = HttpClient.newBuilder()
+                                    .version(HttpClient.Version.HTTP_1_1)
+                                    .connectTimeout(Duration.ofMillis(Math.max(config.getConnectTimeout(), 1)))
+                                    .executor(executor)
+                                    .build();
+        }
+
+        @NotNull
+        @Override
+        public AgentResponse send(@NotNull AgentRequest request) throws IOException, InterruptedException {
+            HttpClient httpClient = client;
+            if (httpClient == null) {
+                throw new IOException("连接池已关闭");
+            }
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri);
+            request.headers.forEach(builder::header);
+            if (request.timeoutMillis > 0) {
+                builder.timeout(Duration.ofMillis(request.timeoutMillis));
+            }
+            if (request.body != null) {
+                builder.method(request.method, HttpRequest.BodyPublishers.ofByteArray(request.body));
+            } else {
+                builder.method(request.method, HttpRequest.BodyPublishers.noBody());
+            }
+            HttpResponse<InputStream> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            Map<String, String> headers = new LinkedHashMap<>();
+            response.headers().map().forEach((name, values) -> {
+                if (!values.isEmpty()) {
+                    headers.put(name.toLowerCase(Locale.ROOT), values.get(0));
+                }
+            });
+            InputStream body = response.body();
+            return new AgentResponse(response.statusCode(), headers, body, body::close);
+        }
+
+        @Override
+        public void close() {
+            HttpClient httpClient = client;
+            client = null;
+            if (httpClient == null) {
+                return;
+            }
+            try {
+                // 插件按 Java 11 编译，Java 21+ 的 shutdownNow 通过反射调用
+                HttpClient.class.getMethod("shutdownNow").invoke(httpClient);
+            } catch (NoSuchMethodException e) {
+                // Java 21 之前依赖客户端不可达后自行释放连接
+            } catch (ReflectiveOperationException e) {
+                logger.debug("shutdown http client failed", e);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * agent 请求
+     */
+    static final class AgentRequest {
+        final String              method;
+        final URI                 uri;
+        final int                 timeoutMillis;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        byte[]                    body;
+
+        AgentRequest(@NotNull String method, @NotNull URI uri, int timeoutMillis) {
+            this.method = method;
+            this.uri = uri;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        void header(@NotNull String name, @Nullable String value) {
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * agent 响应，关闭时归还连接
+     */
+    public static final class AgentResponse implements Closeable {
+        private final int                 statusCode;
+        /**
+         * key: 小写的响应头名称
+         */
+        private final Map<String, String> headers;
+        private final InputStream         body;
+        private final Closeable           release;
+
+        AgentResponse(int statusCode, @NotNull Map<String, String> headers, @NotNull InputStream body, @NotNull Closeable release) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+            this.release = release;
+        }
+
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Nullable
+        public String header(@NotNull String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public void close() throws IOException {
+            release.close();
+        }
+    }
+
+    /**
+     * 响应解析，在连接归还前读取响应流
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+
+        /**
+         * 解析响应
+         *
+         * @param response 响应码及响应头
+         * @param body     响应流（已处理gzip）
+         * @return 解析结果
+         * @throws IOException 读取失败
+         */
+        T read(@NotNull AgentResponse response, @NotNull InputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.JSONToken;
+import com.myth.earth.run.bean.ObjectItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * fastjson 文本格式，兼容旧版本agent
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午10:20
+ */
+final class JsonWireCodec implements WireCodec {
+
+    @NotNull
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+
+    @Nullable
+    @Override
+    public ObjectItem readObject(@NotNull InputStream body) {
+        try (JSONReader reader = new JSONReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            // 与 JSON.parseObject("") 一致，空响应返回null
+            if (reader.peek() == JSONToken.EOF) {
+                return null;
+            }
+            return reader.readObject(ObjectItem.class);
+        }
+    }
+
+    @Override
+    public void readArray(@NotNull InputStream body, @NotNull Predicate<ObjectItem> consumer) throws IOException {
+        InputStreamReader input = new InputStreamReader(body, StandardCharsets.UTF_8);
+        JSONReader reader = new JSONReader(input);
+        boolean complete = false;
+        try {
+            // agent 无子节点时可能返回空内容或 null
+            if (reader.peek() != JSONToken.LBRACKET) {
+                return;
+            }
+            reader.startArray();
+            while (reader.hasNext()) {
+                WireCodec.checkInterrupted();
+                if (!consumer.test(reader.readObject(ObjectItem.class))) {
+                    return;
+                }
+            }
+            reader.endArray();
+            complete = true;
+        } finally {
+            // JSONReader.close 会校验已读到结尾，提前停止时只关闭底层流
+            if (complete) {
+                reader.close();
+            } else {
+                input.close();
+            }
+        }
+    }
+}
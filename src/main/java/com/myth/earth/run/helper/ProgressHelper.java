@@ -23,7 +23,9 @@ import com.intellij.openapi.project.Project;
 import com.intellij.util.concurrency.Semaphore;
 import com.myth.earth.run.plugin.notify.PluginNotify;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 /**
@@ -35,9 +37,9 @@ import java.util.function.Consumer;
 public final class ProgressHelper {
     private static final Logger  logger            = Logger.getInstance(ProgressHelper.class);
     /**
-     * 默认等待时长：1000ms
+     * 默认等待时长：100ms，取消后尽快响应
      */
-    private static final Integer DEFAULT_WAIT_TIME = 1000;
+    private static final Integer DEFAULT_WAIT_TIME = 100;
 
     /**
      * 执行可取消的任务
@@ -47,16 +49,33 @@ public final class ProgressHelper {
      * @param consumer ProgressIndicator进度指示器
      */
     public static void doCancelableTask(@NotNull Project project, @NotNull String title, @NotNull Consumer<ProgressIndicator> consumer) {
+        doCancelableTask(project, title, consumer, null);
+    }
+
+    /**
+     * 执行可取消的任务，取消时中断执行线程（中止进行中的请求），并在后台执行取消回调
+     *
+     * @param project  项目
+     * @param title    任务标题
+     * @param consumer ProgressIndicator进度指示器
+     * @param onCancel 取消回调，如通知agent停止脚本
+     */
+    public static void doCancelableTask(@NotNull Project project, @NotNull String title, @NotNull Consumer<ProgressIndicator> consumer,
+                                        @Nullable Runnable onCancel) {
         new Task.Backgroundable(project, title, true) {
             @Override
             public void run(@NotNull ProgressIndicator progressIndicator) {
                 Semaphore done = new Semaphore();
                 done.down();
 
-                ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(() -> {
                     try {
                         consumer.accept(progressIndicator);
                     } catch (Exception e) {
+                        if (progressIndicator.isCanceled()) {
+                            logger.info("Background Task [" + title + "] canceled");
+                            return;
+                        }
                         PluginNotify.warn(project, "Background Task [" + title + "] execute error:" + e.getMessage());
                         logger.warn("Background Task [" + title + "] execute error", e);
                     } finally {
@@ -66,6 +85,10 @@ public final class ProgressHelper {
 
                 while (!done.waitFor(DEFAULT_WAIT_TIME)) {
                     if (progressIndicator.isCanceled()) {
+                        future.cancel(true);
+                        if (onCancel != null) {
+                            ApplicationManager.getApplication().executeOnPooledThread(onCancel);
+                        }
                         break;
                     }
                 }
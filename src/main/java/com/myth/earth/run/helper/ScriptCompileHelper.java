@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.CapturingProcessHandler;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.JavaSdkType;
+import com.intellij.openapi.projectRoots.JavaSdkVersion;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.PathUtil;
+import com.myth.earth.run.bean.CompiledScript;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyObject;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 在IDE中编译控制台脚本 <br/>
+ * <p>
+ * 按项目模块的依赖及输出目录解析脚本中引用的类，只生成字节码不加载；目标JVM收到后直接在会话的类加载器中定义，
+ * 无需再启动Groovy编译器。脚本中的 get / getObject 等方法在运行时动态分派，编译期无需解析。
+ * 使用IDE自带的Groovy编译，仅在目标JVM的Groovy大版本与IDE一致时使用，见 {@link #isGroovyCompatible(String)}。
+ * <p>
+ * Java片段包装为 {@link Script} 的子类后由项目JDK的javac编译，目标JVM中按普通Java字节码执行，不经过Groovy的动态分派。
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午3:20
+ */
+public class ScriptCompileHelper {
+    /**
+     * 生成的字节码版本，兼容运行在Java 8上的目标JVM
+     */
+    private static final String  TARGET_BYTECODE = CompilerConfiguration.JDK8;
+    /**
+     * javac 编译超时时间(ms)
+     */
+    private static final int     JAVAC_TIMEOUT   = 60 * 1000;
+    /**
+     * Java片段编译的目标版本，与Groovy脚本的字节码版本一致
+     */
+    private static final String  JAVA_RELEASE    = "8";
+    /**
+     * javac 提示方法缺少返回语句
+     */
+    private static final String  MISSING_RETURN  = "missing return statement";
+
+    /**
+     * 编译脚本
+     *
+     * @param project 项目
+     * @param code    脚本内容（包含前置脚本）
+     * @return 脚本类及其字节码
+     * @throws CompilationFailedException 语法错误或引用的类不存在
+     */
+    @NotNull
+    public static CompiledScript compile(@NotNull Project project, @NotNull String code) throws CompilationFailedException {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setClasspathList(getClasspath(project));
+        configuration.setTargetBytecode(TARGET_BYTECODE);
+
+        // 同一脚本生成的类名相同，便于agent按类名复用
+        String mainClass = "EarthScript_" + ScriptDigests.digest(code).substring(0, 16);
+        try (GroovyClassLoader classLoader = new GroovyClassLoader(GroovyObject.class.getClassLoader(), configuration)) {
+            CompilationUnit compilationUnit = new CompilationUnit(configuration, null, classLoader);
+            compilationUnit.addSource(mainClass + ".groovy", code);
+            compilationUnit.compile(Phases.CLASS_GENERATION);
+
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (GroovyClass groovyClass : compilationUnit.getClasses()) {
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+            }
+            CompiledScript compiledScript = new CompiledScript();
+            compiledScript.setMainClass(mainClass);
+            compiledScript.setClasses(classes);
+            return compiledScript;
+        } catch (IOException e) {
+            throw new IllegalStateException("关闭脚本编译类加载器失败：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * IDE编译的Groovy脚本能否在目标JVM中执行 <br/>
+     * <p>
+     * Groovy生成的字节码依赖同一大版本的运行时（调用点、元类等），大版本不一致时应由目标JVM按源码编译。
+     *
+     * @param agentGroovyVersion 目标agent的Groovy版本，为空表示agent未声明
+     * @return 与IDE的Groovy大版本一致时返回true
+     */
+    public static boolean isGroovyCompatible(@Nullable String agentGroovyVersion) {
+        return agentGroovyVersion != null && majorVersion(agentGroovyVersion).equals(majorVersion(GroovySystem.getVersion()));
+    }
+
+    @NotNull
+    private static String majorVersion(@NotNull String version) {
+        int index = version.indexOf('.');
+        return index < 0 ? version : version.substring(0, index);
+    }
+
+    /**
+     * 使用项目JDK编译Java片段
+     *
+     * @param project 项目
+     * @param snippet Java片段，开头可包含import语句，没有返回语句时结果为null
+     * @return 片段类及其字节码
+     * @throws JavaCompileException javac 编译失败
+     */
+    @NotNull
+    public static CompiledScript compileJava(@NotNull Project project, @NotNull String snippet) throws JavaCompileException {
+        try {
+            return compileJava(project, snippet, false);
+        } catch (JavaCompileException e) {
+            // 由javac判断片段是否缺少返回语句，补充 return null 后重新编译
+            if (e.getMessage() == null || !e.getMessage().contains(MISSING_RETURN)) {
+                throw e;
+            }
+            return compileJava(project, snippet, true);
+        }
+    }
+
+    @NotNull
+    private static CompiledScript compileJava(@NotNull Project project, @NotNull String snippet, boolean appendReturn) throws JavaCompileException {
+        Sdk sdk = ProjectRootManager.getInstance(project).getProjectSdk();
+        if (sdk == null || !(sdk.getSdkType() instanceof JavaSdkType)) {
+            throw new IllegalStateException("未配置项目JDK，无法编译Java片段！");
+        }
+        String javac = ((JavaSdkType) sdk.getSdkType()).getBinPath(sdk) + File.separator + (SystemInfo.isWindows ? "javac.exe" : "javac");
+        String mainClass = "EarthSnippet_" + ScriptDigests.digest(snippet).substring(0, 16);
+
+        List<String> classpath = new ArrayList<>(getClasspath(project));
+        classpath.add(PathUtil.getJarPathForClass(Script.class));
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("earth-snippet");
+            Path sourceFile = workDir.resolve(mainClass + ".java");
+            Files.writeString(sourceFile, getJavaSnippetSource(mainClass, snippet, appendReturn));
+            Path outputDir = Files.createDirectory(workDir.resolve("classes"));
+            // 类路径较长，通过参数文件传递，避免超出命令行长度限制
+            Path argFile = workDir.resolve("javac.args");
+            Files.writeString(argFile, "-cp \"" + String.join(File.pathSeparator, classpath).replace('\\', '/') + "\"");
+
+            // 编译器输出固定为英文，便于识别缺少返回语句的错误
+            GeneralCommandLine commandLine = new GeneralCommandLine(javac, "-J-Duser.language=en", "-encoding", "UTF-8", "-g", "-nowarn", "-proc:none");
+            commandLine.addParameters(getTargetOptions(sdk));
+            commandLine.addParameters("@" + argFile, "-d", outputDir.toString(), sourceFile.toString());
+            commandLine.setCharset(StandardCharsets.UTF_8);
+            ProcessOutput output = new CapturingProcessHandler(commandLine).runProcess(JAVAC_TIMEOUT);
+            if (output.isTimeout()) {
+                throw new IllegalStateException("Java片段编译超时！");
+            }
+            if (output.getExitCode() != 0) {
+                throw new JavaCompileException(output.getStderr() + output.getStdout());
+            }
+            return readClasses(mainClass, outputDir);
+        } catch (IOException | ExecutionException e) {
+            throw new IllegalStateException("Java片段编译失败：" + e.getMessage(), e);
+        } finally {
+            if (workDir != null) {
+                FileUtil.delete(workDir.toFile());
+            }
+        }
+    }
+
+    /**
+     * 生成Java 8字节码的编译参数，项目JDK高于Java 8时同时限制可用的JDK API，避免目标JVM中找不到方法
+     */
+    @NotNull
+    private static List<String> getTargetOptions(@NotNull Sdk sdk) {
+        JavaSdkVersion version = JavaSdk.getInstance().getVersion(sdk);
+        if (version != null && version.isAtLeast(JavaSdkVersion.JDK_1_9)) {
+            return List.of("--release", JAVA_RELEASE, "-Xlint:-options");
+        }
+        return List.of("-source", JAVA_RELEASE, "-target", JAVA_RELEASE);
+    }
+
+    /**
+     * Java片段包装后的源码，get / getObject 与Groovy前置脚本中的用法一致
+     *
+     * @param className    类名
+     * @param snippet      Java片段
+     * @param appendReturn 是否在片段末尾补充 return null
+     * @return 完整的类源码
+     */
+    @NotNull
+    public static String getJavaSnippetSource(@NotNull String className, @NotNull String snippet, boolean appendReturn) {
+        StringBuilder imports = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        boolean header = true;
+        for (String line : snippet.split("\n", -1)) {
+            String trimmed = line.trim();
+            if (header && trimmed.startsWith("import ")) {
+                imports.append(trimmed).append('\n');
+                continue;
+            }
+            if (!trimmed.isEmpty() && !trimmed.startsWith("//")) {
+                header = false;
+            }
+            body.append(line).append('\n');
+        }
+        if (appendReturn) {
+            body.append("return null;\n");
+        }
+        return imports
+                + "public class " + className + " extends groovy.lang.Script {\n"
+                + "    @Override\n"
+                + "    public Object run() {\n"
+                + "        try {\n"
+                + "            return snippet();\n"
+                + "        } catch (Throwable e) {\n"
+                + "            return this.<RuntimeException>rethrow(e);\n"
+                + "        }\n"
+                + "    }\n"
+                + "    @SuppressWarnings(\"unchecked\")\n"
+                + "    private <E extends Throwable> Object rethrow(Throwable e) throws E {\n"
+                + "        throw (E) e;\n"
+                + "    }\n"
+                // 与Groovy脚本一致，从会话binding中的 get 闭包获取对象
+                + "    public Object get(Object key) {\n"
+                + "        return ((groovy.lang.Closure<?>) getBinding().getVariable(\"get\")).call(key);\n"
+                + "    }\n"
+                + "    public Object getObject(Object key) {\n"
+                + "        Object obj = get(key);\n"
+                + "        return obj instanceof Object[] && ((Object[]) obj).length > 0 ? ((Object[]) obj)[0] : obj;\n"
+                + "    }\n"
+                + "    @SuppressWarnings(\"unchecked\")\n"
+                + "    public <T> T getObject(Class<T> type) {\n"
+                + "        return (T) getObject((Object) type);\n"
+                + "    }\n"
+                + "    private Object snippet() throws Throwable {\n"
+                + body
+                + "    }\n"
+                + "}\n";
+    }
+
+    @NotNull
+    private static CompiledScript readClasses(@NotNull String mainClass, @NotNull Path outputDir) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.walk(outputDir)) {
+            Iterator<Path> iterator = files.filter(n -> n.toString().endsWith(".class")).iterator();
+            while (iterator.hasNext()) {
+                Path classFile = iterator.next();
+                String relative = outputDir.relativize(classFile).toString();
+                String className = relative.substring(0, relative.length() - ".class".length()).replace(File.separatorChar, '.');
+                classes.put(className, Files.readAllBytes(classFile));
+            }
+        }
+        CompiledScript compiledScript = new CompiledScript();
+        compiledScript.setMainClass(mainClass);
+        compiledScript.setClasses(classes);
+        return compiledScript;
+    }
+
+    /**
+     * 项目模块的依赖及输出目录，不包含JDK
+     */
+    @NotNull
+    private static List<String> getClasspath(@NotNull Project project) {
+        return ReadAction.compute(() -> OrderEnumerator.orderEntries(project).recursively().withoutSdk().getPathsList().getPathList());
+    }
+
+    /**
+     * javac 编译失败，message为编译器输出
+     */
+    public static class JavaCompileException extends Exception {
+        public JavaCompileException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已在agent编译缓存的脚本摘要 <br/>
+ * <p>
+ * 提交过源码的脚本记录摘要，再次执行时先只提交摘要，agent命中缓存时直接运行已编译的类；
+ * agent侧缓存有上限并会淘汰，此处只作命中预判，未命中时再提交源码。
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午2:10
+ */
+final class ScriptDigests {
+    /**
+     * 记录的摘要数量
+     */
+    private static final int                  CACHE_SIZE = 256;
+    /**
+     * key: addressUrl + sessionId + 摘要，按访问顺序淘汰
+     */
+    private static final Map<String, Boolean> DIGESTS    = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private ScriptDigests() {
+    }
+
+    /**
+     * 脚本内容摘要
+     *
+     * @param code 脚本
+     * @return sha256
+     */
+    @NotNull
+    static String digest(@NotNull String code) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(code.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 会话中是否已提交过该脚本的源码
+     */
+    static synchronized boolean contains(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String digest) {
+        return DIGESTS.containsKey(key(addressUrl, sessionId, digest));
+    }
+
+    static synchronized void add(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String digest) {
+        DIGESTS.put(key(addressUrl, sessionId, digest), Boolean.TRUE);
+    }
+
+    /**
+     * agent已淘汰该脚本
+     */
+    static synchronized void remove(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String digest) {
+        DIGESTS.remove(key(addressUrl, sessionId, digest));
+    }
+
+    private static String key(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String digest) {
+        return addressUrl + '#' + sessionId + '#' + digest;
+    }
+}
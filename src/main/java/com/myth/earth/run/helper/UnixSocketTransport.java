@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * 基于 Unix Domain Socket 的 HTTP/1.1 传输，用于本机 Java 16+ 的目标jvm <br/>
+ * <p>
+ * 不经过 TCP 协议栈，也无需在目标机器上占用端口。地址格式：http+unix://{URL编码的socket路径}/jz。
+ * 插件按 Java 11 编译，UnixDomainSocketAddress 等 API 通过反射获取；空闲连接按 keep-alive 复用。
+ * <p>
+ * IDE 自身也必须运行在 Java 16+ 上：IDE 2022.2 起捆绑 JBR 17 才可用，2022.1 及更早版本捆绑 JBR 11，
+ * {@link #isSupported()} 返回false，始终回退到 TCP。
+ * <p>
+ * Unix Domain Socket 通道不支持 SO_TIMEOUT，读写通过 {@link Selector} 等待，超时时间取请求的 timeoutMillis。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午11:05
+ */
+public final class UnixSocketTransport implements EarthHttpPool.AgentTransport {
+    private static final Logger            logger = Logger.getInstance(UnixSocketTransport.class);
+    static final         String            SCHEME = "http+unix";
+    private final        SocketAddress     address;
+    private final        Deque<Connection> idle   = new ConcurrentLinkedDeque<>();
+
+    UnixSocketTransport(@NotNull String socketPath) {
+        this.address = newAddress(socketPath);
+    }
+
+    /**
+     * 当前IDE运行时是否支持 Unix Domain Socket
+     *
+     * @return Java 16+ 时支持
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 16;
+    }
+
+    /**
+     * 生成 socket 对应的 agent 根路径
+     *
+     * @param socketPath socket文件路径
+     * @return 根路径
+     */
+    @NotNull
+    public static String formatAddressUrl(@NotNull String socketPath) {
+        return SCHEME + "://" + URLEncoder.encode(socketPath, StandardCharsets.UTF_8).replace("+", "%20") + "/jz";
+    }
+
+    @NotNull
+    @Override
+    public EarthHttpPool.AgentResponse send(@NotNull EarthHttpPool.AgentRequest request) throws IOException {
+        Connection connection = idle.pollFirst();
+        if (connection != null) {
+            try {
+                return connection.exchange(request);
+            } catch (InterruptedIOException e) {
+                // 超时或中断不是连接失效，不重试
+                connection.close();
+                throw e;
+            } catch (IOException e) {
+                // 空闲连接可能已被agent关闭，换新连接重试一次
+                connection.close();
+                logger.debug("stale unix socket connection, reconnect", e);
+            }
+        }
+        connection = new Connection(open());
+        try {
+            return connection.exchange(request);
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    @NotNull
+    private SocketChannel open() throws IOException {
+        try {
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            SocketChannel channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+            channel.connect(address);
+            return channel;
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("当前运行环境不支持 Unix Domain Socket", e);
+        }
+    }
+
+    @NotNull
+    private static SocketAddress newAddress(@NotNull String socketPath) {
+        try {
+            Class<?> addressClass = Class.forName("java.net.UnixDomainSocketAddress");
+            return (SocketAddress) addressClass.getMethod("of", String.class).invoke(null, socketPath);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("当前运行环境不支持 Unix Domain Socket", e);
+        }
+    }
+
+    /**
+     * 单个 socket 连接，同一时间只处理一个请求
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final Selector      selector;
+        private final InputStream   in;
+        /**
+         * 当前请求的读写超时时间(ms)，小于等于0表示不限制
+         */
+        private int                 timeoutMillis;
+
+        Connection(@NotNull SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.selector = Selector.open();
+            try {
+                channel.configureBlocking(false);
+            } catch (IOException e) {
+                selector.close();
+                channel.close();
+                throw e;
+            }
+            this.in = new BufferedInputStream(new ChannelInputStream());
+        }
+
+        @NotNull
+        EarthHttpPool.AgentResponse exchange(@NotNull EarthHttpPool.AgentRequest request) throws IOException {
+            timeoutMillis = request.timeoutMillis;
+            writeRequest(request);
+
+            String statusLine = readLine();
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                throw new IOException("无效的响应：" + statusLine);
+            }
+            int statusCode = Integer.parseInt(parts[1]);
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+                int index = line.indexOf(':');
+                if (index > 0) {
+                    headers.put(line.substring(0, index).trim().toLowerCase(Locale.ROOT), line.substring(index + 1).trim());
+                }
+            }
+
+            boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+            InputStream body;
+            String contentLength = headers.get("content-length");
+            if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+                body = new ChunkedInputStream(in);
+            } else if (contentLength != null) {
+                body = new LengthInputStream(in, Long.parseLong(contentLength));
+            } else if (statusCode == 204 || statusCode == 304) {
+                body = InputStream.nullInputStream();
+            } else {
+                // 未声明长度时读到连接关闭为止
+                body = in;
+                keepAlive = false;
+            }
+            boolean reusable = keepAlive;
+            InputStream responseBody = body;
+            return new EarthHttpPool.AgentResponse(statusCode, headers, responseBody, () -> release(responseBody, reusable));
+        }
+
+        private void writeRequest(@NotNull EarthHttpPool.AgentRequest request) throws IOException {
+            String target = request.uri.getRawPath() + (request.uri.getRawQuery() == null ? "" : "?" + request.uri.getRawQuery());
+            StringBuilder head = new StringBuilder(256);
+            head.append(request.method).append(' ').append(target).append(" HTTP/1.1\r\n");
+            head.append("Host: localhost\r\n");
+            request.headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+            if (request.body != null) {
+                head.append("Content-Length: ").append(request.body.length).append("\r\n");
+            }
+            head.append("\r\n");
+            write(ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+            if (request.body != null) {
+                write(ByteBuffer.wrap(request.body));
+            }
+        }
+
+        private void write(@NotNull ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        /**
+         * 等待通道可读或可写，超时或线程被中断时关闭连接
+         */
+        private void await(int ops) throws IOException {
+            SelectionKey key = channel.register(selector, ops);
+            try {
+                int ready = timeoutMillis > 0 ? selector.select(timeoutMillis) : selector.select();
+                if (ready > 0) {
+                    return;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("请求agent被中断");
+                }
+                if (timeoutMillis > 0) {
+                    throw new SocketTimeoutException("等待agent响应超时：" + timeoutMillis + "ms");
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            } finally {
+                if (key.isValid()) {
+                    key.interestOps(0);
+                    selector.selectedKeys().clear();
+                }
+            }
+        }
+
+        @NotNull
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new EOFException("agent 已关闭连接");
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * 读完剩余响应后放回空闲队列，未读完或不可复用时关闭
+         */
+        private void release(@NotNull InputStream body, boolean reusable) {
+            if (reusable && channel.isOpen()) {
+                try {
+                    body.transferTo(OutputStream.nullOutputStream());
+                    idle.offerFirst(this);
+                    return;
+                } catch (IOException e) {
+                    logger.debug("drain unix socket response failed", e);
+                }
+            }
+            close();
+        }
+
+        void close() {
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                logger.debug("close unix socket failed", e);
+            }
+        }
+
+        /**
+         * 非阻塞通道的输入流，无数据时按超时时间等待
+         */
+        private class ChannelInputStream extends InputStream {
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                int n;
+                while ((n = channel.read(buffer)) == 0) {
+                    await(SelectionKey.OP_READ);
+                }
+                return n;
+            }
+        }
+    }
+
+    /**
+     * 按 Content-Length 读取，不关闭底层连接
+     */
+    private static class LengthInputStream extends FilterInputStream {
+        private long remaining;
+
+        LengthInputStream(@NotNull InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("响应内容不完整");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("响应内容不完整");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 按 chunked 编码读取，不关闭底层连接
+     */
+    private static class ChunkedInputStream extends FilterInputStream {
+        private long    remaining;
+        private boolean finished;
+
+        ChunkedInputStream(@NotNull InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("响应内容不完整");
+            }
+            remaining -= n;
+            if (remaining == 0) {
+                // 每个chunk以CRLF结尾
+                readChunkLine();
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return finished ? 0 : (int) Math.min(in.available(), remaining);
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (remaining > 0) {
+                return true;
+            }
+            String line = readChunkLine();
+            int extension = line.indexOf(';');
+            remaining = Long.parseLong((extension >= 0 ? line.substring(0, extension) : line).trim(), 16);
+            if (remaining == 0) {
+                // 跳过trailer
+                while (!readChunkLine().isEmpty()) {
+                    // ignore
+                }
+                finished = true;
+                return false;
+            }
+            return true;
+        }
+
+        @NotNull
+        private String readChunkLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new EOFException("响应内容不完整");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
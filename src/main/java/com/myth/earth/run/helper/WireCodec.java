@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.ObjectItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.Predicate;
+
+/**
+ * agent 响应的编码格式 <br/>
+ * <p>
+ * 默认为 fastjson 文本；agent支持时使用更紧凑的 CBOR 二进制格式，按响应的 Content-Type 选择解码方式。
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午10:20
+ */
+public interface WireCodec {
+
+    WireCodec JSON = new JsonWireCodec();
+    WireCodec CBOR = new CborWireCodec();
+
+    /**
+     * 编码格式对应的 Content-Type
+     *
+     * @return Content-Type
+     */
+    @NotNull
+    String getContentType();
+
+    /**
+     * 解析单个对象
+     *
+     * @param body 响应流
+     * @return 对象，响应为空时返回null
+     * @throws IOException 读取失败
+     */
+    @Nullable
+    ObjectItem readObject(@NotNull InputStream body) throws IOException;
+
+    /**
+     * 逐个解析对象数组，响应为空或不是数组时不回调
+     *
+     * @param body     响应流
+     * @param consumer 每个对象的回调，返回false时停止解析
+     * @throws IOException 读取失败或已取消
+     */
+    void readArray(@NotNull InputStream body, @NotNull Predicate<ObjectItem> consumer) throws IOException;
+
+    /**
+     * 目标agent请求时使用的编码格式
+     *
+     * @param addressUrl 根路径
+     * @return 编码格式
+     */
+    @NotNull
+    static WireCodec of(@NotNull String addressUrl) {
+        return AgentFeatures.supports(addressUrl, AgentFeatures.CBOR) ? CBOR : JSON;
+    }
+
+    /**
+     * 按响应的 Content-Type 选择解码方式，agent未按请求格式返回时退回 JSON
+     *
+     * @param response 响应
+     * @return 编码格式
+     */
+    @NotNull
+    static WireCodec of(@NotNull EarthHttpPool.AgentResponse response) {
+        String contentType = response.header("Content-Type");
+        return contentType != null && contentType.startsWith(CBOR.getContentType()) ? CBOR : JSON;
+    }
+
+    /**
+     * 解析大数组时响应取消
+     *
+     * @throws InterruptedIOException 当前线程已中断
+     */
+    static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("加载已取消");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.actions;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 对选中的方法做基准测试 <br/>
+ * <p>
+ * 在目标JVM中先预热再计时调用，统计吞吐量及耗时分位数；脚本结果为JSON，执行后在工具窗口的“基准测试”页展示。
+ * 脚本为Groovy语法，生成时控制台切换为Groovy模式。
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午5:10
+ */
+public class BenchmarkMethodAction extends RunMethodAction {
+    /**
+     * 默认预热次数
+     */
+    private static final int WARMUP_ITERATIONS  = 1000;
+    /**
+     * 默认测量次数
+     */
+    private static final int MEASURE_ITERATIONS = 10000;
+
+    @Override
+    protected String buildScript(@NotNull PsiClass targetClass, @NotNull PsiMethod targetMethod, @NotNull String header, @NotNull String params,
+                                 @NotNull String getBean, @NotNull String runMethod) {
+        String benchmark = targetClass.getName() + "#" + targetMethod.getName();
+        // 返回值累加到sink并随结果返回，避免JIT将无副作用的调用整体消除
+        String invoke = PsiType.VOID.equals(targetMethod.getReturnType()) ? runMethod : "sink += System.identityHashCode(" + runMethod + ")";
+        return header + "\n" + params + "\n" + getBean + "\n\n"
+                + "int warmup = " + WARMUP_ITERATIONS + "\n"
+                + "int iterations = " + MEASURE_ITERATIONS + "\n"
+                + "if (iterations <= 0) {\n"
+                + "    throw new IllegalArgumentException(\"iterations 必须大于0\")\n"
+                + "}\n"
+                + "long sink = 0\n"
+                + "// 预热，触发目标JVM的JIT编译\n"
+                + "for (int i = 0; i < warmup; i++) {\n"
+                + "    " + invoke + "\n"
+                + "}\n"
+                + "long[] costs = new long[iterations]\n"
+                + "long begin = System.nanoTime()\n"
+                + "for (int i = 0; i < iterations; i++) {\n"
+                + "    long start = System.nanoTime()\n"
+                + "    " + invoke + "\n"
+                + "    costs[i] = System.nanoTime() - start\n"
+                + "}\n"
+                + "long total = System.nanoTime() - begin\n"
+                + "Arrays.sort(costs)\n"
+                + "def percentile = { double p -> costs[Math.max(0, (int) Math.ceil(p * iterations) - 1)] }\n"
+                + "\"\"\"{\"benchmark\":\"" + benchmark + "\",\"warmup\":${Math.max(warmup, 0)},\"iterations\":${iterations},"
+                + "\"opsPerSecond\":${iterations * 1e9d / total},\"p50\":${percentile(0.5)},\"p90\":${percentile(0.9)},"
+                + "\"p99\":${percentile(0.99)},\"max\":${costs[iterations - 1]},\"sink\":${sink}}\"\"\"";
+    }
+}
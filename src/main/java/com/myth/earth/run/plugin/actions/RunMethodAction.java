@@ -29,6 +29,7 @@ import com.myth.earth.run.common.ProjectConst;
 import com.myth.earth.run.kit.PsiKit;
 import com.myth.earth.run.plugin.notify.PluginNotify;
 import com.myth.earth.run.plugin.service.DebugUltraService;
+import com.myth.earth.run.plugin.state.RunHelperProjectState;
 import com.myth.earth.run.plugin.toolwindow.DebugUltraToolwindow;
 import org.jetbrains.annotations.NotNull;
 
@@ -106,9 +107,15 @@ public class RunMethodAction extends AnAction {
         if (StringUtil.isNotEmpty(params)) {
             params = "\n" + params + "\n";
         }
-        String code = headerJoiner + "\n" + params + "\n" + getBean + "\n" + runMethod;
+        String code = buildScript(targetClass, targetMethod, headerJoiner.toString(), params, getBean, runMethod);
 
         DebugUltraService debugUltraService = DebugUltraService.getInstance(project);
+        // 生成的脚本为Groovy语法，Java片段模式下切换回Groovy
+        RunHelperProjectState state = RunHelperProjectState.getInstance(project);
+        if (state.javaSnippet) {
+            state.javaSnippet = false;
+            debugUltraService.refreshConsoleLanguage(false);
+        }
         debugUltraService.refreshGroovyCode(code);
 
         DebugUltraToolwindow.showWindow(project, ()->{
@@ -118,4 +125,20 @@ public class RunMethodAction extends AnAction {
             }
         });
     }
+
+    /**
+     * 生成调用脚本
+     *
+     * @param targetClass  方法所属类
+     * @param targetMethod 目标方法
+     * @param header       import信息
+     * @param params       参数声明
+     * @param getBean      获取目标对象
+     * @param runMethod    方法调用
+     * @return 脚本内容
+     */
+    protected String buildScript(@NotNull PsiClass targetClass, @NotNull PsiMethod targetMethod, @NotNull String header, @NotNull String params,
+                                 @NotNull String getBean, @NotNull String runMethod) {
+        return header + "\n" + params + "\n" + getBean + "\n" + runMethod;
+    }
 }
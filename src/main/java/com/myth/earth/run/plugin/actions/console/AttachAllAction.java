@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.actions.console;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import com.myth.earth.run.core.AgentAttachService;
+import com.myth.earth.run.helper.AgentLoadHelper;
+import com.myth.earth.run.helper.ProgressHelper;
+import com.myth.earth.run.kit.ProjectRunKit;
+import com.myth.earth.run.plugin.notify.PluginNotify;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 并行挂载当前项目运行中的所有进程，之后切换进程时无需再等待attach
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午9:10
+ */
+public class AttachAllAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        Project project = anActionEvent.getProject();
+        if (project == null) {
+            return;
+        }
+        // 与进程选择对话框一致，排除IDE自身的进程
+        List<String> pids = ProjectRunKit.getMapRunning(project)
+                                         .entrySet()
+                                         .stream()
+                                         .filter(e -> !e.getValue().startsWith("org.jetbrains") && !e.getValue().startsWith("com.intellij"))
+                                         .map(e -> String.valueOf(e.getKey()))
+                                         .collect(Collectors.toList());
+        if (pids.isEmpty()) {
+            PluginNotify.warn(project, "当前项目没有运行中的进程！");
+            return;
+        }
+
+        ProgressHelper.doCancelableTask(project, "Attach All", progressIndicator -> {
+            String agentPath = AgentLoadHelper.loadAgent();
+            Map<String, AgentAttachService.AttachResult> results = AgentAttachService.getInstance().attachAll(pids, agentPath, null);
+            List<String> failed = results.values()
+                                         .stream()
+                                         .filter(r -> !r.isSuccess())
+                                         .map(r -> r.getId() + "：" + r.getError().getMessage())
+                                         .collect(Collectors.toList());
+            if (progressIndicator.isCanceled()) {
+                return;
+            }
+            if (failed.isEmpty()) {
+                PluginNotify.info(project, "已挂载 " + results.size() + " 个进程");
+            } else {
+                PluginNotify.warn(project, "已挂载 " + (results.size() - failed.size()) + " 个进程，失败 " + failed.size() + " 个：\n" + String.join("\n", failed));
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.actions.console;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.Project;
+import com.myth.earth.run.plugin.state.RunHelperProjectState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 切换脚本编译位置：IDE中编译后仅发送字节码，或由目标JVM编译
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午3:20
+ */
+public class CompileInIdeAction extends ToggleAction {
+
+    @Override
+    public boolean isSelected(@NotNull AnActionEvent anActionEvent) {
+        Project project = anActionEvent.getProject();
+        return project != null && RunHelperProjectState.getInstance(project).compileInIde;
+    }
+
+    @Override
+    public void setSelected(@NotNull AnActionEvent anActionEvent, boolean state) {
+        Project project = anActionEvent.getProject();
+        if (project == null) {
+            return;
+        }
+        RunHelperProjectState.getInstance(project).compileInIde = state;
+    }
+}
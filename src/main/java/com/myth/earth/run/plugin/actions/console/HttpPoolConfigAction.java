@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.actions.console;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.myth.earth.run.helper.EarthHttpPool;
+import com.myth.earth.run.plugin.dialog.HttpPoolConfigDialog;
+import com.myth.earth.run.plugin.state.RunHelperAppState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 设置agent连接池
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午4:30
+ */
+public class HttpPoolConfigAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        RunHelperAppState state = RunHelperAppState.getInstance();
+        HttpPoolConfigDialog dialog = new HttpPoolConfigDialog(anActionEvent.getProject(), state.httpPoolConfig);
+        if (dialog.showAndGet()) {
+            state.httpPoolConfig = dialog.getHttpPoolConfig();
+            EarthHttpPool.configure(state.httpPoolConfig);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.dialog;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.util.ui.FormBuilder;
+import com.myth.earth.run.bean.EvalBudget;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * 脚本执行资源限制设置
+ *
+ * @author zhouchao
+ * @date 2026-10-19 上午9:20
+ */
+public class EvalBudgetDialog extends DialogWrapper {
+    private final JBIntSpinner wallTimeoutSpinner;
+    private final JBIntSpinner cpuTimeoutSpinner;
+    private final JBIntSpinner allocatedMbSpinner;
+
+    public EvalBudgetDialog(@NotNull Project project, @NotNull EvalBudget evalBudget) {
+        super(project);
+        this.wallTimeoutSpinner = new JBIntSpinner(evalBudget.getWallTimeout(), 0, Integer.MAX_VALUE, 1000);
+        this.cpuTimeoutSpinner = new JBIntSpinner(evalBudget.getCpuTimeout(), 0, Integer.MAX_VALUE, 1000);
+        this.allocatedMbSpinner = new JBIntSpinner((int) Math.min(evalBudget.getAllocatedMb(), Integer.MAX_VALUE), 0, Integer.MAX_VALUE, 64);
+        setTitle("Eval Budget");
+        init();
+    }
+
+    @Override
+    protected @Nullable JComponent createCenterPanel() {
+        return FormBuilder.createFormBuilder()
+                          .addLabeledComponent("执行超时(ms)：", wallTimeoutSpinner)
+                          .addLabeledComponent("CPU时间上限(ms)：", cpuTimeoutSpinner)
+                          .addLabeledComponent("内存分配上限(MB)：", allocatedMbSpinner)
+                          .addComponentToRightColumn(new JLabel("0 表示不限制，由目标JVM中的agent按执行线程统计"))
+                          .getPanel();
+    }
+
+    /**
+     * 按输入内容生成新的资源限制
+     *
+     * @return 资源限制
+     */
+    @NotNull
+    public EvalBudget getEvalBudget() {
+        EvalBudget evalBudget = new EvalBudget();
+        evalBudget.setWallTimeout(wallTimeoutSpinner.getNumber());
+        evalBudget.setCpuTimeout(cpuTimeoutSpinner.getNumber());
+        evalBudget.setAllocatedMb(allocatedMbSpinner.getNumber());
+        return evalBudget;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.dialog;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.util.ui.FormBuilder;
+import com.myth.earth.run.bean.HttpPoolConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * agent 连接池设置
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午4:20
+ */
+public class HttpPoolConfigDialog extends DialogWrapper {
+    private final JBIntSpinner connectTimeoutSpinner;
+    private final JBIntSpinner readTimeoutSpinner;
+    private final JBIntSpinner maxConnectionsSpinner;
+    private final JBIntSpinner acquireTimeoutSpinner;
+
+    public HttpPoolConfigDialog(@Nullable Project project, @NotNull HttpPoolConfig httpPoolConfig) {
+        super(project);
+        this.connectTimeoutSpinner = new JBIntSpinner(httpPoolConfig.getConnectTimeout(), 1, Integer.MAX_VALUE, 1000);
+        this.readTimeoutSpinner = new JBIntSpinner(httpPoolConfig.getReadTimeout(), 0, Integer.MAX_VALUE, 1000);
+        this.maxConnectionsSpinner = new JBIntSpinner(httpPoolConfig.getMaxConnections(), 1, 64, 1);
+        this.acquireTimeoutSpinner = new JBIntSpinner(httpPoolConfig.getAcquireTimeout(), 1, Integer.MAX_VALUE, 1000);
+        setTitle("Agent Connection");
+        init();
+    }
+
+    @Override
+    protected @Nullable JComponent createCenterPanel() {
+        return FormBuilder.createFormBuilder()
+                          .addLabeledComponent("连接超时(ms)：", connectTimeoutSpinner)
+                          .addLabeledComponent("响应超时(ms)：", readTimeoutSpinner)
+                          .addLabeledComponent("单个JVM最大并发连接数：", maxConnectionsSpinner)
+                          .addLabeledComponent("等待空闲连接超时(ms)：", acquireTimeoutSpinner)
+                          .addComponentToRightColumn(new JLabel("响应超时为 0 表示不限制；所有项目共用，进行中的请求完成后按新配置重建连接"))
+                          .getPanel();
+    }
+
+    /**
+     * 按输入内容生成新的连接池配置
+     *
+     * @return 连接池配置
+     */
+    @NotNull
+    public HttpPoolConfig getHttpPoolConfig() {
+        HttpPoolConfig httpPoolConfig = new HttpPoolConfig();
+        httpPoolConfig.setConnectTimeout(connectTimeoutSpinner.getNumber());
+        httpPoolConfig.setReadTimeout(readTimeoutSpinner.getNumber());
+        httpPoolConfig.setMaxConnections(maxConnectionsSpinner.getNumber());
+        httpPoolConfig.setAcquireTimeout(acquireTimeoutSpinner.getNumber());
+        return httpPoolConfig;
+    }
+}
@@ -16,11 +16,15 @@
 package com.myth.earth.run.plugin.dialog;
 
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.project.Project;
 import com.intellij.ui.border.CustomLineBorder;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.ui.JBUI;
+import com.myth.earth.run.core.JvmLivenessListener;
 import com.myth.earth.run.kit.ProjectRunKit;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
@@ -37,13 +41,17 @@ import java.awt.event.WindowEvent;
 import java.util.Map;
 
 public class VirtualSelectDialog extends JDialog {
-    private final Project      project;
-    private       JPanel       contentPane;
-    private       JButton      buttonCancel;
-    private       JPanel       showPanel;
-    private       JBScrollPane jbScrollPane;
+    private final Project              project;
+    private       JPanel               contentPane;
+    private       JButton              buttonCancel;
+    private       JPanel               showPanel;
+    private       JBScrollPane         jbScrollPane;
     @Getter
-    private       String       pid;
+    private       String               pid;
+    /**
+     * 本机jvm列表变化时刷新，对话框关闭时断开
+     */
+    private final MessageBusConnection connection;
 
     public VirtualSelectDialog(@NotNull Project project) {
         this.project = project;
@@ -74,10 +82,29 @@ public class VirtualSelectDialog extends JDialog {
         jbScrollPane.setBorder(emptyBorder);
         showPanel.setBorder(emptyBorder);
         showPanel.add(getVirtualComponent(), BorderLayout.CENTER);
+
+        // 有进程启动或退出时刷新列表，无需重新打开对话框
+        this.connection = ApplicationManager.getApplication().getMessageBus().connect();
+        this.connection.subscribe(JvmLivenessListener.TOPIC, new JvmLivenessListener() {
+            @Override
+            public void jvmListChanged() {
+                ApplicationManager.getApplication().invokeLater(VirtualSelectDialog.this::refreshVirtualComponent, ModalityState.any());
+            }
+        });
+    }
+
+    private void refreshVirtualComponent() {
+        if (!isDisplayable()) {
+            return;
+        }
+        showPanel.removeAll();
+        showPanel.add(getVirtualComponent(), BorderLayout.CENTER);
+        showPanel.revalidate();
+        showPanel.repaint();
     }
 
     private void onCancel() {
-        // 必要时在此处添加您的代码
+        connection.disconnect();
         dispose();
     }
 
@@ -17,33 +17,52 @@ package com.myth.earth.run.plugin.service;
 
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.ui.OnePixelSplitter;
+import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.JBUI;
+import com.myth.earth.run.bean.BenchmarkResult;
 import com.myth.earth.run.bean.ClassloaderInfo;
+import com.myth.earth.run.bean.CompiledScript;
 import com.myth.earth.run.bean.EnvInfo;
+import com.myth.earth.run.bean.EvalBudget;
+import com.myth.earth.run.bean.GroovyCode;
 import com.myth.earth.run.bean.ObjectItem;
 import com.myth.earth.run.common.ProjectConst;
 import com.myth.earth.run.core.AgentAttachService;
+import com.myth.earth.run.core.JvmLivenessListener;
+import com.myth.earth.run.core.JvmLivenessRegistry;
+import com.myth.earth.run.helper.AgentFeatures;
 import com.myth.earth.run.helper.AgentLoadHelper;
 import com.myth.earth.run.helper.EarthHttpHelper;
+import com.myth.earth.run.helper.EarthHttpPool;
 import com.myth.earth.run.helper.ProgressHelper;
+import com.myth.earth.run.helper.ScriptCompileHelper;
 import com.myth.earth.run.kit.ProjectRunKit;
 import com.myth.earth.run.plugin.dialog.VirtualSelectDialog;
 import com.myth.earth.run.plugin.notify.PluginNotify;
+import com.myth.earth.run.plugin.state.RunHelperAppState;
+import com.myth.earth.run.plugin.state.RunHelperProjectState;
+import com.myth.earth.run.plugin.toolwindow.DebugUltraToolwindow;
+import com.myth.earth.run.plugin.ui.panel.BenchmarkPanel;
 import com.myth.earth.run.plugin.ui.panel.GroovyCodePanel;
 import com.myth.earth.run.plugin.ui.panel.GroovyConsolePanel;
-import com.sun.tools.attach.VirtualMachine;
-import com.sun.tools.attach.VirtualMachineDescriptor;
+import groovy.lang.GroovySystem;
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * agent debug 服务
@@ -65,12 +84,28 @@ public class DebugUltraService {
      * 当前环境信息
      */
     private final EnvInfo            envInfo;
+    /**
+     * 方法基准测试结果
+     */
+    private final BenchmarkPanel     benchmarkPanel;
+    private       Content            benchmarkContent;
 
     public DebugUltraService(@NotNull Project project) {
         this.project = project;
         this.groovyConsolePanel = new GroovyConsolePanel(project);
         this.groovyCodePanel = new GroovyCodePanel(project);
         this.envInfo = new EnvInfo();
+        this.benchmarkPanel = new BenchmarkPanel();
+        EarthHttpPool.configure(RunHelperAppState.getInstance().httpPoolConfig);
+        // 目标jvm退出后刷新控制台，无需轮询
+        ApplicationManager.getApplication().getMessageBus().connect(project).subscribe(JvmLivenessListener.TOPIC, new JvmLivenessListener() {
+            @Override
+            public void jvmExited(@NotNull String pid) {
+                if (pid.equals(envInfo.getPid())) {
+                    ApplicationManager.getApplication().invokeLater(DebugUltraService.this::refreshGroovyConsole, project.getDisposed());
+                }
+            }
+        });
     }
 
     public static DebugUltraService getInstance(@NotNull Project project) {
@@ -91,21 +126,18 @@ public class DebugUltraService {
     }
 
     private boolean checkValidPid(@Nullable String pid) {
-        if (pid == null) {
-            return false;
-        }
-
-        List<VirtualMachineDescriptor> list = VirtualMachine.list();
-        if (list.isEmpty()) {
-            return false;
-        }
+        return JvmLivenessRegistry.getInstance().isAlive(pid);
+    }
 
-        for (VirtualMachineDescriptor descriptor : list) {
-            if (descriptor.id().equals(pid)) {
-                return true;
-            }
+    /**
+     * 重置连接信息，并释放目标jvm的连接池
+     */
+    private void resetEnvInfo() {
+        String addressUrl = envInfo.getAddressUrl();
+        if (addressUrl != null) {
+            EarthHttpPool.evict(addressUrl);
         }
-        return false;
+        envInfo.reset();
     }
 
     private String selectRunPid() {
@@ -163,7 +195,7 @@ public class DebugUltraService {
         }
 
         // 重置连接信息
-        envInfo.reset();
+        resetEnvInfo();
 
         // 不进行重连，直接返回
         if (!reconnect) {
@@ -177,11 +209,15 @@ public class DebugUltraService {
         }
 
         // 获取资源文件夹下的 lib 目录的 URL
-        String agentPath = AgentLoadHelper.loadAgent(false);
+        String agentPath = AgentLoadHelper.loadAgent();
         AgentAttachService agentAttachService = AgentAttachService.getInstance();
         AgentAttachService.JvmItem jvmItem = agentAttachService.attach(pid, agentPath, null);
         if (jvmItem != null) {
-            envInfo.init(pid, String.format("http://%s:%s/jz", jvmItem.getTargetIp(), jvmItem.getTargetPort()));
+            envInfo.init(pid, jvmItem.getAddressUrl());
+            String attachPhases = jvmItem.formatAttachPhases();
+            if (!attachPhases.isEmpty()) {
+                PluginNotify.info(project, "已挂载进程" + pid + "，最近一次挂载耗时：" + attachPhases);
+            }
         }
         return envInfo;
     }
@@ -189,7 +225,7 @@ public class DebugUltraService {
     public void refreshGroovyConsole() {
         String pid = envInfo.getPid();
         if (!checkValidPid(pid)) {
-            envInfo.reset();
+            resetEnvInfo();
             groovyConsolePanel.refreshGroovyData(null, null);
             return;
         }
@@ -206,7 +242,7 @@ public class DebugUltraService {
     public void refreshGroovySession() {
         String pid = envInfo.getPid();
         if (!checkValidPid(pid)) {
-            envInfo.reset();
+            resetEnvInfo();
             groovyConsolePanel.refreshGroovyData(null, null);
             return;
         }
@@ -222,10 +258,44 @@ public class DebugUltraService {
         // 重新建立链接
         String classloaderId = getClassloaderId();
         if (classloaderId != null) {
-            envInfo.setSessionId(EarthHttpHelper.openSession(envInfo.getAddressUrl(), classloaderId));
+            openSession(classloaderId);
         }
     }
 
+    /**
+     * 建立会话；前置脚本在首次执行时于后台任务中登记，能力协商可能等待超时，不在界面线程中进行
+     *
+     * @param classloaderId 类加载器ID
+     */
+    private void openSession(@NotNull String classloaderId) {
+        String sessionId = EarthHttpHelper.openSession(envInfo.getAddressUrl(), classloaderId);
+        envInfo.setSessionId(sessionId);
+        envInfo.setPrelude(null);
+        envInfo.setPreludeRegistered(false);
+    }
+
+    /**
+     * 前置脚本有变更时重新登记，agent不支持登记时退回到每次执行前拼接
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     * @return 本次执行需要拼接的前置脚本，已登记时为空串
+     */
+    @NotNull
+    private synchronized String preparePrelude(@NotNull String addressUrl, @NotNull String sessionId) {
+        StringBuilder prelude = new StringBuilder(ProjectConst.GROOVY_HEAD);
+        List<GroovyCode> groovyCodes = RunHelperProjectState.getInstance(project).groovyCodes;
+        if (groovyCodes != null) {
+            groovyCodes.stream().filter(n -> Boolean.TRUE.equals(n.getPreludeFlag())).forEach(n -> prelude.append(n.getCode()).append('\n'));
+        }
+        String code = prelude.toString();
+        if (!code.equals(envInfo.getPrelude())) {
+            envInfo.setPreludeRegistered(EarthHttpHelper.registerPrelude(addressUrl, sessionId, code));
+            envInfo.setPrelude(code);
+        }
+        return envInfo.isPreludeRegistered() ? "" : code;
+    }
+
     public void doProcessGroovyCode() {
         String pid = envInfo.getPid();
         if (!checkValidPid(pid)) {
@@ -239,8 +309,7 @@ public class DebugUltraService {
                 PluginNotify.warn(project, "无法加载类加载器信息，请点击刷新按钮！");
                 return;
             }
-            String sessionId = EarthHttpHelper.openSession(envInfo.getAddressUrl(), classloaderId);
-            envInfo.setSessionId(sessionId);
+            openSession(classloaderId);
         }
 
         if (envInfo.getSessionId() == null) {
@@ -249,18 +318,155 @@ public class DebugUltraService {
         }
 
         String sessionId = envInfo.getSessionId();
-        String groovyCode = ProjectConst.GROOVY_HEAD + groovyConsolePanel.getGroovyCode();
-        System.out.println(groovyCode);
+        String addressUrl = envInfo.getAddressUrl();
+        String userCode = groovyConsolePanel.getGroovyCode();
+        EvalBudget evalBudget = RunHelperProjectState.getInstance(project).evalBudget;
+        boolean compileInIde = RunHelperProjectState.getInstance(project).compileInIde;
+        boolean javaSnippet = RunHelperProjectState.getInstance(project).javaSnippet;
+        String projection = groovyConsolePanel.getProjection();
         ProgressHelper.doCancelableTask(project, sessionId, progressIndicator -> {
-            ObjectItem result = EarthHttpHelper.eval(envInfo.getAddressUrl(), sessionId, groovyCode);
-            ApplicationManager.getApplication().invokeLater(() -> groovyConsolePanel.refreshJvmResult(result));
-        });
+            ScheduledFuture<?> watchdog = scheduleTimeout(addressUrl, evalBudget, progressIndicator);
+            try {
+                if (projection != null && !AgentFeatures.supports(addressUrl, AgentFeatures.PROJECTION)) {
+                    PluginNotify.warn(project, "当前agent不支持投影/过滤表达式，已忽略！");
+                }
+                // 前置脚本已在会话中登记时仅提交用户代码
+                String prelude = preparePrelude(addressUrl, sessionId);
+                ObjectItem result;
+                if (canEvalCompiled(addressUrl, compileInIde, javaSnippet)) {
+                    // IDE中编译时前置脚本一并编译，不依赖agent中登记的前置脚本；Java片段由包装类提供 get / getObject
+                    String code = javaSnippet ? userCode : envInfo.getPrelude() + userCode;
+                    result = evalCompiled(addressUrl, sessionId, code, javaSnippet, evalBudget, projection);
+                } else {
+                    result = EarthHttpHelper.eval(addressUrl, sessionId, prelude + userCode, evalBudget, projection);
+                }
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    // 展开子节点时沿用本次结果的表达式
+                    envInfo.setProjection(projection);
+                    groovyConsolePanel.refreshJvmResult(result);
+                    BenchmarkResult benchmarkResult = BenchmarkResult.parse(result);
+                    if (benchmarkResult != null) {
+                        showBenchmarkResult(benchmarkResult);
+                    }
+                });
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+            }
+        }, () -> interruptGroovyCode(addressUrl, sessionId));
+    }
+
+    /**
+     * 是否在IDE中编译脚本，不满足条件时提示并改为在目标JVM中按Groovy编译
+     *
+     * @param compileInIde 是否开启IDE编译
+     * @param javaSnippet  是否为Java片段
+     * @return true: 在IDE中编译
+     */
+    private boolean canEvalCompiled(@NotNull String addressUrl, boolean compileInIde, boolean javaSnippet) {
+        if (!compileInIde && !javaSnippet) {
+            return false;
+        }
+        if (!AgentFeatures.supports(addressUrl, AgentFeatures.EVAL_CLASS)) {
+            PluginNotify.warn(project, "当前agent不支持执行IDE编译的脚本，已改为在目标JVM中按Groovy编译！");
+            return false;
+        }
+        // Java片段只依赖 groovy.lang.Script 等稳定API，Groovy脚本的字节码依赖同一大版本的Groovy运行时
+        String agentGroovyVersion = AgentFeatures.getGroovyVersion(addressUrl);
+        if (!javaSnippet && !ScriptCompileHelper.isGroovyCompatible(agentGroovyVersion)) {
+            PluginNotify.warn(project, "目标JVM的Groovy版本(" + agentGroovyVersion + ")与IDE(" + GroovySystem.getVersion() + ")不一致，已改为在目标JVM中编译！");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 在IDE中编译脚本，仅将字节码发送到目标JVM
+     *
+     * @param javaSnippet 是否为Java片段
+     * @return 执行结果，编译失败时通过错误字段返回
+     */
+    private ObjectItem evalCompiled(@NotNull String addressUrl, @NotNull String sessionId, @NotNull String code, boolean javaSnippet, @NotNull EvalBudget evalBudget,
+                                    @Nullable String projection) {
+        CompiledScript compiledScript;
+        try {
+            compiledScript = javaSnippet ? ScriptCompileHelper.compileJava(project, code) : ScriptCompileHelper.compile(project, code);
+        } catch (CompilationFailedException | ScriptCompileHelper.JavaCompileException e) {
+            ObjectItem error = new ObjectItem();
+            error.setErrorType("CompilationFailed");
+            error.setErrorMessage(e.getMessage());
+            return error;
+        }
+        return EarthHttpHelper.evalClass(addressUrl, sessionId, compiledScript, evalBudget, projection);
+    }
+
+    /**
+     * agent不支持资源限制时，在插件侧按执行超时取消（中止请求并通知agent中断脚本）
+     *
+     * @param addressUrl        根路径
+     * @param evalBudget        资源限制
+     * @param progressIndicator 执行进度
+     * @return 超时任务，无需超时控制时返回null
+     */
+    @Nullable
+    private ScheduledFuture<?> scheduleTimeout(@NotNull String addressUrl, @NotNull EvalBudget evalBudget, @NotNull ProgressIndicator progressIndicator) {
+        int wallTimeout = evalBudget.getWallTimeout();
+        if (wallTimeout <= 0 || AgentFeatures.supports(addressUrl, AgentFeatures.BUDGET)) {
+            return null;
+        }
+        return AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            progressIndicator.cancel();
+            ObjectItem timeout = new ObjectItem();
+            timeout.setErrorType("EvalTimeout");
+            timeout.setErrorMessage("脚本执行超过" + wallTimeout + "ms，已取消执行");
+            ApplicationManager.getApplication().invokeLater(() -> groovyConsolePanel.refreshJvmResult(timeout));
+        }, wallTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消执行后通知agent中断脚本，避免脚本继续占用目标jvm资源
+     *
+     * @param addressUrl 根路径
+     * @param sessionId  会话ID
+     */
+    private void interruptGroovyCode(@NotNull String addressUrl, @NotNull String sessionId) {
+        try {
+            if (!EarthHttpHelper.interrupt(addressUrl, sessionId)) {
+                PluginNotify.warn(project, "当前agent不支持中断脚本，已停止等待，脚本可能仍在目标JVM中执行！");
+            }
+        } catch (Exception e) {
+            PluginNotify.warn(project, "中断脚本失败：" + e.getMessage());
+        }
     }
 
     public void refreshGroovyCode(String groovyCode) {
         groovyConsolePanel.refreshGroovyCode(groovyCode);
     }
 
+    /**
+     * 在工具窗口的“基准测试”页追加结果，首次使用时创建该页
+     *
+     * @param benchmarkResult 基准测试结果
+     */
+    public void showBenchmarkResult(@NotNull BenchmarkResult benchmarkResult) {
+        ToolWindow toolWindow = DebugUltraToolwindow.getToolWindow(project);
+        if (toolWindow == null) {
+            return;
+        }
+        ContentManager contentManager = toolWindow.getContentManager();
+        if (benchmarkContent == null || contentManager.getIndexOfContent(benchmarkContent) < 0) {
+            benchmarkContent = ContentFactory.SERVICE.getInstance().createContent(benchmarkPanel, "基准测试", false);
+            contentManager.addContent(benchmarkContent);
+        }
+        benchmarkPanel.addResult(benchmarkResult);
+        contentManager.setSelectedContent(benchmarkContent);
+    }
+
+    public void refreshConsoleLanguage(boolean javaSnippet) {
+        groovyConsolePanel.setJavaSnippet(javaSnippet);
+    }
+
     public void saveGroovyCodeShell() {
         String groovyCode = groovyConsolePanel.getGroovyCode();
         if (groovyCode == null || groovyCode.trim().isEmpty()) {
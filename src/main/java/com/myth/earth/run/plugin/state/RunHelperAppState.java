@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.state;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.myth.earth.run.bean.HttpPoolConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 应用级设置，所有项目共用
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午4:10
+ */
+@State(name = "com.myth.earth.run.plugin.state.RunHelperAppState", storages = {@Storage("EarthRunHelper-app-setting.xml")})
+public class RunHelperAppState implements PersistentStateComponent<RunHelperAppState> {
+
+    /**
+     * agent 连接池配置，连接池按目标jvm全局共享，因此不区分项目
+     */
+    public HttpPoolConfig httpPoolConfig = new HttpPoolConfig();
+
+    public static RunHelperAppState getInstance() {
+        return ApplicationManager.getApplication().getService(RunHelperAppState.class);
+    }
+
+    @Override
+    public @Nullable RunHelperAppState getState() {
+        return this;
+    }
+
+    @Override
+    public void loadState(@NotNull RunHelperAppState runHelperAppState) {
+        XmlSerializerUtil.copyBean(runHelperAppState, this);
+    }
+}
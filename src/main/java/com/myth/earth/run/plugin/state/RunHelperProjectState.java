@@ -20,6 +20,7 @@ import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.myth.earth.run.bean.EvalBudget;
 import com.myth.earth.run.bean.GroovyCode;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -34,6 +35,18 @@ import java.util.List;
 public class RunHelperProjectState implements PersistentStateComponent<RunHelperProjectState> {
 
     public List<GroovyCode> groovyCodes;
+    /**
+     * 脚本执行资源限制
+     */
+    public EvalBudget       evalBudget = new EvalBudget();
+    /**
+     * 在IDE中编译脚本，仅将字节码发送到目标JVM
+     */
+    public boolean          compileInIde;
+    /**
+     * 控制台使用Java片段，IDE中用javac编译
+     */
+    public boolean          javaSnippet;
 
     public static RunHelperProjectState getInstance(@NotNull Project project) {
         return project.getService(RunHelperProjectState.class);
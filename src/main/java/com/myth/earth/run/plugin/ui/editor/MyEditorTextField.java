@@ -15,6 +15,7 @@
 
 package com.myth.earth.run.plugin.ui.editor;
 
+import com.intellij.ide.highlighter.JavaFileType;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.EditorSettings;
@@ -22,14 +23,21 @@ import com.intellij.openapi.editor.ex.EditorEx;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.FileTypes;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaCodeFragment;
+import com.intellij.psi.JavaCodeFragmentFactory;
+import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
 import com.intellij.psi.codeStyle.CodeStyleManager;
 import com.intellij.ui.EditorTextField;
 import com.intellij.util.LocalTimeCounter;
 import com.intellij.util.ui.JBUI;
 import com.myth.earth.run.common.ProjectConst;
+import com.myth.earth.run.helper.ScriptCompileHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.groovy.GroovyFileType;
@@ -130,6 +138,16 @@ public class MyEditorTextField extends EditorTextField {
 
     public Document createDocument(@Nullable final String text, @NotNull final FileType fileType) {
         final PsiFileFactory factory = PsiFileFactory.getInstance(getProject());
+        if (fileType == JavaFileType.INSTANCE) {
+            // Java片段按语句块解析，上下文为包装类的方法体，get / getObject 可正常解析
+            String source = ScriptCompileHelper.getJavaSnippetSource("EarthSnippet", "", false);
+            PsiJavaFile contextFile = (PsiJavaFile) factory.createFileFromText("EarthSnippet.java", JavaFileType.INSTANCE, source);
+            PsiClass[] classes = contextFile.getClasses();
+            PsiMethod[] methods = classes.length > 0 ? classes[0].findMethodsByName("snippet", false) : PsiMethod.EMPTY_ARRAY;
+            PsiElement context = methods.length > 0 ? methods[0].getBody() : null;
+            JavaCodeFragment fragment = JavaCodeFragmentFactory.getInstance(getProject()).createCodeBlockCodeFragment(text == null ? "" : text, context, true);
+            return PsiDocumentManager.getInstance(getProject()).getDocument(fragment);
+        }
         final long stamp = LocalTimeCounter.currentTime();
         final PsiFile psiFile = factory.createFileFromText(ProjectConst.PROJECT_OUTPUT_DIRECTORY, fileType, text == null ? "" : text, stamp, true, false);
         return PsiDocumentManager.getInstance(getProject()).getDocument(psiFile);
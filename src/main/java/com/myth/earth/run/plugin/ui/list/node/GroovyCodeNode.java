@@ -43,6 +43,9 @@ public class GroovyCodeNode extends AbstractListNode {
         if (groovyCode.getDefaultFlag()) {
             coloredListCellRenderer.setIconToolTip("默认");
             coloredListCellRenderer.setIcon(AllIcons.General.TodoDefault);
+        } else if (Boolean.TRUE.equals(groovyCode.getPreludeFlag())) {
+            coloredListCellRenderer.setIconToolTip("会话前置脚本");
+            coloredListCellRenderer.setIcon(AllIcons.Actions.Lightning);
         } else {
             coloredListCellRenderer.setIconToolTip("自定义");
             coloredListCellRenderer.setIcon(AllIcons.Nodes.Favorite);
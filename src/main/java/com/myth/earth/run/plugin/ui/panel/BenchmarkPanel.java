@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.ui.panel;
+
+import com.intellij.ui.ToolbarDecorator;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.ListTableModel;
+import com.myth.earth.run.bean.BenchmarkResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Function;
+
+/**
+ * 方法基准测试结果，每次执行追加一行便于对比
+ *
+ * @author zhouchao
+ * @date 2026-10-19 下午5:10
+ */
+public class BenchmarkPanel extends JPanel {
+    private final ListTableModel<BenchmarkResult> tableModel;
+
+    @SuppressWarnings("unchecked")
+    public BenchmarkPanel() {
+        super(new BorderLayout());
+        this.tableModel = new ListTableModel<>(column("方法", BenchmarkResult::getBenchmark),
+                                               column("预热次数", n -> String.valueOf(n.getWarmup())),
+                                               column("测量次数", n -> String.valueOf(n.getIterations())),
+                                               column("ops/s", n -> String.format("%,.1f", n.getOpsPerSecond())),
+                                               column("p50", n -> formatNanos(n.getP50())),
+                                               column("p90", n -> formatNanos(n.getP90())),
+                                               column("p99", n -> formatNanos(n.getP99())),
+                                               column("max", n -> formatNanos(n.getMax())));
+        JBTable table = new JBTable(tableModel);
+        table.getEmptyText().setText("在方法上右键 Benchmark Method 生成脚本，执行后在此展示结果");
+
+        JPanel tablePanel = ToolbarDecorator.createDecorator(table).disableAddAction().disableUpDownActions().createPanel();
+        tablePanel.setBorder(JBUI.Borders.empty());
+        this.setBorder(JBUI.Borders.empty());
+        this.add(tablePanel, BorderLayout.CENTER);
+    }
+
+    public void addResult(@NotNull BenchmarkResult benchmarkResult) {
+        this.tableModel.addRow(benchmarkResult);
+    }
+
+    private static ColumnInfo<BenchmarkResult, String> column(@NotNull String name, @NotNull Function<BenchmarkResult, String> getter) {
+        return new ColumnInfo<>(name) {
+            @Nullable
+            @Override
+            public String valueOf(BenchmarkResult benchmarkResult) {
+                return getter.apply(benchmarkResult);
+            }
+        };
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format("%.2f ms", nanos / 1_000_000d);
+        }
+        return String.format("%.2f µs", nanos / 1_000d);
+    }
+}
@@ -120,6 +120,24 @@ public class GroovyCodePanel extends JPanel {
             listModel.remove(selectedIndex);
             refreshProjectGroovyCodes();
         });
+        // 会话前置脚本，建立会话时登记一次，不再随每次执行提交
+        toolbarDecorator.addExtraAction(new AnActionButton("设为/取消会话前置脚本", AllIcons.Actions.Lightning) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+                int selectedIndex = listPanel.getSelectedIndex();
+                if (selectedIndex == -1) {
+                    return;
+                }
+                GroovyCode groovyCode = listModel.getElementAt(selectedIndex).getGroovyCode();
+                if (groovyCode.getDefaultFlag()) {
+                    PluginNotify.warn(project, "默认节点不可设为前置脚本！");
+                    return;
+                }
+                groovyCode.setPreludeFlag(!Boolean.TRUE.equals(groovyCode.getPreludeFlag()));
+                listModel.contentsChanged(listModel.getElementAt(selectedIndex));
+                refreshProjectGroovyCodes();
+            }
+        });
         // 重置操作
         toolbarDecorator.addExtraAction(new AnActionButton("重置面板内容", AllIcons.Actions.Rollback) {
             @Override
@@ -15,6 +15,8 @@
 
 package com.myth.earth.run.plugin.ui.panel;
 
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.ui.JBColor;
@@ -23,24 +25,31 @@ import com.intellij.ui.border.CustomLineBorder;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.components.JBTextArea;
+import com.intellij.ui.components.JBTextField;
 import com.intellij.util.ui.JBUI;
 import com.myth.earth.run.bean.ClassloaderInfo;
 import com.myth.earth.run.bean.EnvInfo;
 import com.myth.earth.run.bean.ObjectItem;
+import com.myth.earth.run.core.AgentAttachService;
 import com.myth.earth.run.kit.IconKit;
 import com.myth.earth.run.kit.ToolbarKit;
 import com.myth.earth.run.plugin.service.DebugUltraService;
+import com.myth.earth.run.plugin.state.RunHelperProjectState;
 import com.myth.earth.run.plugin.ui.editor.MyEditorTextField;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.groovy.GroovyFileType;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -64,6 +73,10 @@ public class GroovyConsolePanel extends OnePixelSplitter {
      * 类加载器选择项
      */
     private final ComboBox<String>  classloaderComboBox;
+    /**
+     * 结果投影/过滤表达式
+     */
+    private final JBTextField       projectionField;
     /**
      * 执行状态信息展示
      */
@@ -73,7 +86,7 @@ public class GroovyConsolePanel extends OnePixelSplitter {
     public GroovyConsolePanel(final Project project) {
         super(false, "JZ.ConsoleRun", 0.5f);
         this.project = project;
-        this.groovyEditor = new MyEditorTextField(project);
+        this.groovyEditor = new MyEditorTextField(project, getEditorFileType(RunHelperProjectState.getInstance(project).javaSnippet));
         this.groovyEditor.setBorder(JBUI.Borders.empty());
         this.groovyEditor.setText("// getObject(class) or get(class)\n");
 
@@ -81,6 +94,10 @@ public class GroovyConsolePanel extends OnePixelSplitter {
         this.pidLabel.setBorder(JBUI.Borders.empty(0, 5));
         this.pidLabel.setComponentOrientation(ComponentOrientation.LEFT_TO_RIGHT);
         this.classloaderComboBox = new ComboBox<>();
+        this.projectionField = new JBTextField();
+        this.projectionField.getEmptyText().setText("投影/过滤，如 [*].name");
+        this.projectionField.setToolTipText("<html>在目标JVM中裁剪结果后再返回，语法同节点路径：<br/>[*].name<br/>[?(@.status == 'FAILED')].id</html>");
+        this.projectionField.setMaximumSize(new Dimension(Integer.MAX_VALUE, this.projectionField.getPreferredSize().height));
 
         this.jvmResultPanel = new JvmResultPanel(project);
         this.runStatusArea = new JBTextArea();
@@ -129,7 +146,9 @@ public class GroovyConsolePanel extends OnePixelSplitter {
         toolbarPanel.setPreferredSize(new Dimension(-1, 31));
         toolbarPanel.setLayout(new BoxLayout(toolbarPanel, BoxLayout.X_AXIS));
         toolbarPanel.setBorder(new CustomLineBorder(JBUI.insetsBottom(1)));
-        toolbarPanel.add(Box.createHorizontalGlue());
+        toolbarPanel.add(Box.createHorizontalStrut(5));
+        toolbarPanel.add(this.projectionField);
+        toolbarPanel.add(Box.createHorizontalStrut(5));
         toolbarPanel.add(this.classloaderComboBox);
         toolbarPanel.add(Box.createHorizontalStrut(5));
 
@@ -177,9 +196,11 @@ public class GroovyConsolePanel extends OnePixelSplitter {
         if (pid != null) {
             this.pidLabel.setIcon(IconKit.SUCCESS);
             this.pidLabel.setText(pid);
+            this.pidLabel.setToolTipText(getAttachCostTip(pid));
         } else {
             this.pidLabel.setIcon(IconKit.FAIL);
             this.pidLabel.setText("未连接");
+            this.pidLabel.setToolTipText(null);
         }
 
         // 初始化选项
@@ -193,6 +214,32 @@ public class GroovyConsolePanel extends OnePixelSplitter {
                         .ifPresent(classloaderComboBox::setSelectedItem);
     }
 
+    /**
+     * attach各阶段耗时明细，最新的在最上面
+     *
+     * @param pid 进程id
+     * @return html表格，没有记录时为空
+     */
+    @Nullable
+    private String getAttachCostTip(@NotNull String pid) {
+        List<Map<String, Long>> history = AgentAttachService.getInstance().getAttachHistory(pid);
+        if (history.isEmpty()) {
+            return null;
+        }
+
+        Set<String> phases = new LinkedHashSet<>();
+        history.forEach(h -> phases.addAll(h.keySet()));
+        StringBuilder tip = new StringBuilder("<html><b>attach耗时(ms)</b><table><tr>");
+        phases.forEach(phase -> tip.append("<th>").append(phase).append("</th>"));
+        tip.append("<th>total</th></tr>");
+        for (Map<String, Long> costs : history) {
+            tip.append("<tr>");
+            phases.forEach(phase -> tip.append("<td>").append(Optional.ofNullable(costs.get(phase)).map(String::valueOf).orElse("-")).append("</td>"));
+            tip.append("<td>").append(costs.values().stream().mapToLong(Long::longValue).sum()).append("</td></tr>");
+        }
+        return tip.append("</table></html>").toString();
+    }
+
     public void resetGroovyCode() {
         this.groovyEditor.setText(null);
         this.runStatusArea.setText(null);
@@ -203,15 +250,39 @@ public class GroovyConsolePanel extends OnePixelSplitter {
         return (String) classloaderComboBox.getSelectedItem();
     }
 
+    /**
+     * 切换编辑器语言，保留已输入的内容
+     *
+     * @param javaSnippet 是否为Java片段
+     */
+    public void setJavaSnippet(boolean javaSnippet) {
+        this.groovyEditor.setFileType(getEditorFileType(javaSnippet));
+    }
+
+    private static FileType getEditorFileType(boolean javaSnippet) {
+        return javaSnippet ? JavaFileType.INSTANCE : GroovyFileType.GROOVY_FILE_TYPE;
+    }
+
     public String getGroovyCode() {
         return groovyEditor.getText();
     }
 
+    @Nullable
+    public String getProjection() {
+        String projection = projectionField.getText().trim();
+        return projection.isEmpty() ? null : projection;
+    }
+
     public void refreshJvmResult(@NotNull ObjectItem objectItem) {
         if (objectItem.getErrorStack() != null) {
             this.runStatusArea.setForeground(JBColor.RED);
             this.runStatusArea.setText(objectItem.getErrorStack());
             this.jvmResultPanel.refreshJvmResultTree(null);
+        } else if (objectItem.getErrorMessage() != null) {
+            // 超出执行资源限制等没有堆栈的错误
+            this.runStatusArea.setForeground(JBColor.RED);
+            this.runStatusArea.setText(objectItem.getErrorType() == null ? objectItem.getErrorMessage() : objectItem.getErrorType() + ": " + objectItem.getErrorMessage());
+            this.jvmResultPanel.refreshJvmResultTree(null);
         } else {
             this.runStatusArea.setForeground(JBColor.GREEN);
             this.runStatusArea.setText("Success");
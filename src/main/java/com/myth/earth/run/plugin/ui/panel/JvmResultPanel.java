@@ -15,25 +15,44 @@
 
 package com.myth.earth.run.plugin.ui.panel;
 
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.ui.PopupHandler;
 import com.intellij.ui.TreeSpeedSearch;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.util.ui.JBUI;
 import com.myth.earth.run.bean.EnvInfo;
 import com.myth.earth.run.bean.ObjectItem;
+import com.myth.earth.run.helper.ChildPrefetcher;
 import com.myth.earth.run.helper.EarthHttpHelper;
 import com.myth.earth.run.plugin.notify.PluginNotify;
 import com.myth.earth.run.plugin.service.DebugUltraService;
 import com.myth.earth.run.plugin.ui.tree.ObjectItemTree;
+import com.myth.earth.run.plugin.ui.tree.node.AbstractObjectItemNode;
+import com.myth.earth.run.plugin.ui.tree.node.LoadingNode;
 import com.myth.earth.run.plugin.ui.tree.node.ObjectItemNode;
+import com.myth.earth.run.plugin.ui.tree.node.ObjectItemRangeNode;
+import com.myth.earth.run.utils.TreeNodeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * jvm run result panel
@@ -42,10 +61,39 @@ import java.util.List;
  * @date 2024/11/26 下午6:50
  **/
 public class JvmResultPanel extends JBScrollPane {
-    private final Project          project;
-    private final DefaultTreeModel model;
-    private final ObjectItemTree   tree;
-    private final ObjectItemNode   summaryNode;
+    private static final Logger                                   logger       = Logger.getInstance(JvmResultPanel.class);
+    /**
+     * 集合超过该数量时按区间分段展示，每段最多加载的子节点数量
+     */
+    private static final int                                      PAGE_SIZE    = 1000;
+    /**
+     * 右键菜单中可选的展开层数
+     */
+    private static final int[]                                    EXPAND_DEPTH = {2, 3, 5};
+    /**
+     * 多层展开时的节点数量上限
+     */
+    private static final int                                      MAX_NODES    = 5000;
+    /**
+     * 多层展开时的响应大小上限：16MB
+     */
+    private static final long                                     MAX_BYTES    = 16L * 1024 * 1024;
+    private final        Project                                  project;
+    private final        DefaultTreeModel                         model;
+    private final        ObjectItemTree                           tree;
+    private final        ObjectItemNode                           summaryNode;
+    /**
+     * 正在加载子节点的任务，仅在EDT中访问
+     */
+    private final        Map<AbstractObjectItemNode, LoadingTask> loadingTasks = new HashMap<>();
+    /**
+     * 子节点预取
+     */
+    private final        ChildPrefetcher                          prefetcher   = new ChildPrefetcher();
+    /**
+     * 结果版本，每次刷新结果后递增，用于丢弃过期的加载结果
+     */
+    private              int                                      generation;
 
     public JvmResultPanel(@NotNull Project project) {
         this.setBorder(JBUI.Borders.empty());
@@ -69,17 +117,22 @@ public class JvmResultPanel extends JBScrollPane {
                     return;
                 }
 
-                ObjectItemNode objectItemNode = tree.getSelectItem();
-                if (objectItemNode == null || objectItemNode.getObjectItem() == null) {
+                AbstractObjectItemNode selectNode = tree.getSelectNode();
+                // 已存在的不再加载
+                if (selectNode == null || selectNode.getChildCount() > 0) {
                     return;
                 }
 
-                // 已存在的不再加载
-                int childCount = objectItemNode.getChildCount();
-                if (childCount > 0) {
+                if (selectNode instanceof ObjectItemRangeNode) {
+                    expandRangeNode((ObjectItemRangeNode) selectNode);
+                    return;
+                }
+
+                if (!(selectNode instanceof ObjectItemNode) || ((ObjectItemNode) selectNode).getObjectItem() == null) {
                     return;
                 }
 
+                ObjectItemNode objectItemNode = (ObjectItemNode) selectNode;
                 ObjectItem objectItem = objectItemNode.getObjectItem();
                 if (objectItem.isAtomic()) {
                     return;
@@ -88,21 +141,327 @@ public class JvmResultPanel extends JBScrollPane {
                 List<ObjectItem> children = objectItem.getChildren();
                 if (children != null && !children.isEmpty()) {
                     refreshChildNode(objectItemNode, children);
+                    prefetchChildren(children);
                     return;
                 }
 
-                EnvInfo envInfo = DebugUltraService.getInstance(project).getEnvInfo(false);
-                if (envInfo.isActive()) {
-                    List<ObjectItem> objectItems = EarthHttpHelper.detail(envInfo.getAddressUrl(), envInfo.getSessionId(), objectItem);
-                    refreshChildNode(objectItemNode, objectItems);
-                } else {
-                    PluginNotify.warn(project, "已断开链接，无法查看！");
+                // 大集合只展示区间，展开区间时再加载
+                Integer childSize = objectItem.getChildSize();
+                if (childSize != null && childSize > PAGE_SIZE) {
+                    refreshRangeNode(objectItemNode, objectItem, 0, childSize);
+                    return;
+                }
+
+                loadChildNode(objectItemNode, objectItem, -1, -1);
+            }
+        });
+        DefaultActionGroup expandGroup = new DefaultActionGroup();
+        for (int depth : EXPAND_DEPTH) {
+            expandGroup.add(DumbAwareAction.create("展开" + depth + "层", e -> expandToDepth(depth)));
+        }
+        PopupHandler.installPopupMenu(this.tree, expandGroup, "EarthRunHelper.JvmResult");
+        this.tree.addTreeExpansionListener(new TreeExpansionListener() {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+                Object node = event.getPath().getLastPathComponent();
+                if (node instanceof AbstractObjectItemNode) {
+                    cancelLoading((AbstractObjectItemNode) node);
+                }
+            }
+        });
+    }
+
+    /**
+     * 展开分段节点：区间仍然过大时继续细分，否则加载该区间的子节点
+     *
+     * @param rangeNode 分段节点
+     */
+    private void expandRangeNode(@NotNull ObjectItemRangeNode rangeNode) {
+        if (rangeNode.size() > PAGE_SIZE) {
+            refreshRangeNode(rangeNode, rangeNode.getOwner(), rangeNode.getFrom(), rangeNode.getTo());
+        } else {
+            loadChildNode(rangeNode, rangeNode.getOwner(), rangeNode.getFrom(), rangeNode.size());
+        }
+    }
+
+    /**
+     * 将区间 [from, to) 划分为不超过 PAGE_SIZE 个分段节点
+     *
+     * @param parentNode 父节点
+     * @param owner      所属的集合对象
+     * @param from       起始下标（包含）
+     * @param to         结束下标（不包含）
+     */
+    private void refreshRangeNode(@NotNull AbstractObjectItemNode parentNode, @NotNull ObjectItem owner, int from, int to) {
+        long step = PAGE_SIZE;
+        while ((to - from + step - 1) / step > PAGE_SIZE) {
+            step *= PAGE_SIZE;
+        }
+        int count = (int) ((to - from + step - 1) / step);
+        int[] newIdx = new int[count];
+        for (int i = 0; i < count; i++) {
+            int begin = (int) (from + i * step);
+            int end = (int) Math.min(to, begin + step);
+            parentNode.add(new ObjectItemRangeNode(owner, begin, end));
+            newIdx[i] = i;
+        }
+        this.model.nodesWereInserted(parentNode, newIdx);
+        this.tree.expandPath(new TreePath(parentNode.getPath()));
+    }
+
+    /**
+     * 加载节点的直接子节点，已预取的结果直接挂载，不再请求agent
+     *
+     * @param parentNode 父节点
+     * @param objectItem 子节点所属对象
+     * @param begin      起始下标，-1表示按agent默认方式加载
+     * @param size       加载数量
+     */
+    private void loadChildNode(@NotNull AbstractObjectItemNode parentNode, @NotNull ObjectItem objectItem, int begin, int size) {
+        if (begin < 0) {
+            // 已预取时直接挂载
+            String sessionId = DebugUltraService.getInstance(project).getEnvInfo(false).getSessionId();
+            List<ObjectItem> prefetched = prefetcher.take(sessionId, objectItem.getPath());
+            if (prefetched != null) {
+                refreshChildNode(parentNode, prefetched);
+                prefetchChildren(prefetched);
+                return;
+            }
+        }
+        loadChildNode(parentNode, objectItem, (addressUrl, sessionId, projection, consumer) -> {
+            if (begin < 0) {
+                EarthHttpHelper.detail(addressUrl, sessionId, objectItem, projection, consumer);
+            } else {
+                EarthHttpHelper.detail(addressUrl, sessionId, objectItem, begin, size, projection, consumer);
+            }
+            return true;
+        }, false);
+    }
+
+    /**
+     * 在后台线程执行加载，期间父节点下显示“加载中”；每批子节点到达后即挂载，结束时移除占位节点
+     *
+     * @param parentNode 父节点
+     * @param objectItem 子节点所属对象
+     * @param loader     子节点获取方式
+     * @param subtree    是否按返回的 children 展开多层
+     */
+    private void loadChildNode(@NotNull AbstractObjectItemNode parentNode, @NotNull ObjectItem objectItem, @NotNull ChildLoader loader, boolean subtree) {
+        EnvInfo envInfo = DebugUltraService.getInstance(project).getEnvInfo(false);
+        if (!envInfo.isActive()) {
+            PluginNotify.warn(project, "已断开链接，无法查看！");
+            return;
+        }
+
+        LoadingTask task = new LoadingTask(generation);
+        loadingTasks.put(parentNode, task);
+        parentNode.add(task.placeholder);
+        this.model.nodesWereInserted(parentNode, new int[]{parentNode.getChildCount() - 1});
+        this.tree.expandPath(new TreePath(parentNode.getPath()));
+
+        String addressUrl = envInfo.getAddressUrl();
+        String sessionId = envInfo.getSessionId();
+        String projection = envInfo.getProjection();
+        task.future = ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                // 边解析边挂载，大结果无需等待整个响应解析完成
+                Consumer<List<ObjectItem>> consumer = batch -> ApplicationManager.getApplication().invokeLater(() -> {
+                    if (!isLoading(parentNode, task)) {
+                        return;
+                    }
+                    if (subtree) {
+                        refreshSubtreeNode(parentNode, batch);
+                    } else {
+                        refreshChildNode(parentNode, batch);
+                    }
+                });
+                boolean complete = loader.load(addressUrl, sessionId, projection, consumer);
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (!finishLoading(parentNode, task)) {
+                        return;
+                    }
+                    if (!complete) {
+                        PluginNotify.warn(project, "节点数量或数据大小超出上限，仅展示部分结果！");
+                    } else if (!subtree) {
+                        prefetchChildren(parentNode);
+                    }
+                });
+            } catch (Exception e) {
+                if (task.future != null && task.future.isCancelled()) {
+                    return;
                 }
+                logger.warn("load child node error: " + objectItem.getPath(), e);
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (failLoading(parentNode, task)) {
+                        PluginNotify.warn(project, "加载子节点失败：" + e.getMessage());
+                    }
+                });
             }
         });
     }
 
+    /**
+     * 一次请求展开选中节点下的多层子节点
+     *
+     * @param depth 展开层数
+     */
+    private void expandToDepth(int depth) {
+        AbstractObjectItemNode selectNode = tree.getSelectNode();
+        if (!(selectNode instanceof ObjectItemNode) || ((ObjectItemNode) selectNode).getObjectItem() == null) {
+            return;
+        }
+        ObjectItem objectItem = ((ObjectItemNode) selectNode).getObjectItem();
+        if (objectItem.isAtomic()) {
+            return;
+        }
+
+        // 已加载的子节点重新按层级加载
+        cancelLoading(selectNode);
+        if (selectNode.getChildCount() > 0) {
+            selectNode.removeAllChildren();
+            this.model.nodeStructureChanged(selectNode);
+        }
+        loadChildNode(selectNode, objectItem, (addressUrl, sessionId, projection, consumer) ->
+                EarthHttpHelper.detailTree(addressUrl, sessionId, objectItem, depth - 1, MAX_NODES, MAX_BYTES, projection, consumer), true);
+    }
+
+    /**
+     * 挂载子节点，并按已返回的 children 逐层挂载、展开
+     *
+     * @param parentNode  父节点
+     * @param objectItems 子节点
+     */
+    private void refreshSubtreeNode(@NotNull AbstractObjectItemNode parentNode, @NotNull List<ObjectItem> objectItems) {
+        int offset = appendChildNode(parentNode, objectItems);
+        for (int i = 0; i < objectItems.size(); i++) {
+            List<ObjectItem> children = objectItems.get(i).getChildren();
+            if (children != null && !children.isEmpty()) {
+                refreshSubtreeNode((AbstractObjectItemNode) parentNode.getChildAt(offset + i), children);
+            }
+        }
+    }
+
+    /**
+     * 后台预取节点下前几个可展开的子节点
+     *
+     * @param parentNode 刚展开的节点
+     */
+    private void prefetchChildren(@NotNull AbstractObjectItemNode parentNode) {
+        List<ObjectItem> children = new ArrayList<>();
+        for (int i = 0; i < parentNode.getChildCount(); i++) {
+            if (parentNode.getChildAt(i) instanceof ObjectItemNode) {
+                ObjectItem child = ((ObjectItemNode) parentNode.getChildAt(i)).getObjectItem();
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+        }
+        prefetchChildren(children);
+    }
+
+    private void prefetchChildren(@NotNull List<ObjectItem> children) {
+        EnvInfo envInfo = DebugUltraService.getInstance(project).getEnvInfo(false);
+        if (envInfo.isActive() && envInfo.getSessionId() != null) {
+            prefetcher.prefetch(envInfo.getAddressUrl(), envInfo.getSessionId(), envInfo.getProjection(), children);
+        }
+    }
+
+    /**
+     * 加载任务是否仍然有效
+     *
+     * @param parentNode 父节点
+     * @param task       加载任务
+     * @return false: 任务已取消或结果已过期
+     */
+    private boolean isLoading(@NotNull AbstractObjectItemNode parentNode, @NotNull LoadingTask task) {
+        return task.generation == generation && loadingTasks.get(parentNode) == task;
+    }
+
+    /**
+     * 结束加载并移除占位节点
+     *
+     * @param parentNode 父节点
+     * @param task       加载任务
+     * @return false: 任务已取消或结果已过期
+     */
+    private boolean finishLoading(@NotNull AbstractObjectItemNode parentNode, @NotNull LoadingTask task) {
+        if (!isLoading(parentNode, task)) {
+            return false;
+        }
+        loadingTasks.remove(parentNode);
+        removePlaceholder(parentNode, task);
+        return true;
+    }
+
+    /**
+     * 加载失败，丢弃已挂载的部分子节点
+     *
+     * @param parentNode 父节点
+     * @param task       加载任务
+     * @return false: 任务已取消或结果已过期
+     */
+    private boolean failLoading(@NotNull AbstractObjectItemNode parentNode, @NotNull LoadingTask task) {
+        if (!isLoading(parentNode, task)) {
+            return false;
+        }
+        loadingTasks.remove(parentNode);
+        discardChildren(parentNode);
+        return true;
+    }
+
+    /**
+     * 取消节点及其子孙节点上正在进行的加载，已挂载的部分子节点一并移除
+     *
+     * @param node 折叠的节点
+     */
+    private void cancelLoading(@NotNull AbstractObjectItemNode node) {
+        Iterator<Map.Entry<AbstractObjectItemNode, LoadingTask>> iterator = loadingTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<AbstractObjectItemNode, LoadingTask> next = iterator.next();
+            if (node.isNodeDescendant(next.getKey())) {
+                iterator.remove();
+                next.getValue().cancel();
+                discardChildren(next.getKey());
+            }
+        }
+    }
+
+    /**
+     * 移除加载中节点下的所有子节点（含占位节点），再次双击时重新加载 <br/>
+     * <p>
+     * 只有无子节点时才会发起加载，加载中出现的子节点都来自本次加载，保留会被误认为已加载完成。
+     *
+     * @param parentNode 父节点
+     */
+    private void discardChildren(@NotNull AbstractObjectItemNode parentNode) {
+        if (parentNode.getChildCount() == 0) {
+            return;
+        }
+        parentNode.removeAllChildren();
+        // 祖先节点已清空时当前节点已脱离树，无需通知
+        if (parentNode.getRoot() == summaryNode) {
+            this.model.nodeStructureChanged(parentNode);
+        }
+    }
+
+    private void removePlaceholder(@NotNull AbstractObjectItemNode parentNode, @NotNull LoadingTask task) {
+        int index = parentNode.getIndex(task.placeholder);
+        if (index >= 0) {
+            parentNode.remove(index);
+            this.model.nodesWereRemoved(parentNode, new int[]{index}, new Object[]{task.placeholder});
+        }
+    }
+
     public void refreshJvmResultTree(@Nullable ObjectItem objectItem) {
+        // 丢弃上一次结果中未完成的加载
+        this.generation++;
+        this.loadingTasks.values().forEach(LoadingTask::cancel);
+        this.loadingTasks.clear();
+        this.prefetcher.clear();
         this.summaryNode.setObjectItem(objectItem);
         this.summaryNode.removeAllChildren();
         // 节点结构变更，不然清除后依旧能看到
@@ -110,17 +469,65 @@ public class JvmResultPanel extends JBScrollPane {
         this.tree.expandRow(0);
     }
 
-    public void refreshChildNode(@NotNull ObjectItemNode parentNode, @NotNull List<ObjectItem> objectItems) {
-        // 渲染子节点信息
-        for (int i = 0; i < objectItems.size(); i++) {
-            ObjectItem objectItem = objectItems.get(i);
-            parentNode.insert(new ObjectItemNode(objectItem), i);
-            int[] newIdx = {i};
-            // 节点被插入
-            this.model.nodesWereInserted(parentNode, newIdx);
-            // 通知节点变化
-            this.model.nodeChanged(parentNode);
+    public void refreshChildNode(@NotNull AbstractObjectItemNode parentNode, @NotNull List<ObjectItem> objectItems) {
+        appendChildNode(parentNode, objectItems);
+    }
+
+    /**
+     * 渲染子节点信息，分批加载时占位节点保持在末尾
+     *
+     * @param parentNode  父节点
+     * @param objectItems 子节点
+     * @return 第一个子节点的下标
+     */
+    private int appendChildNode(@NotNull AbstractObjectItemNode parentNode, @NotNull List<ObjectItem> objectItems) {
+        long start = System.nanoTime();
+        List<ObjectItemNode> nodes = new ArrayList<>(objectItems.size());
+        for (ObjectItem objectItem : objectItems) {
+            nodes.add(new ObjectItemNode(objectItem));
+        }
+        int offset = TreeNodeUtil.appendChildren(this.model, parentNode, nodes, LoadingNode.class::isInstance);
+        this.tree.expandPath(new TreePath(parentNode.getPath()));
+        if (logger.isDebugEnabled()) {
+            logger.debug("insert " + nodes.size() + " child nodes cost " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+        return offset;
+    }
+
+    /**
+     * 子节点获取方式，在后台线程中执行
+     */
+    @FunctionalInterface
+    private interface ChildLoader {
+
+        /**
+         * 获取子节点
+         *
+         * @param addressUrl 根路径
+         * @param sessionId  会话ID
+         * @param projection 投影/过滤表达式
+         * @param consumer   每批子节点的回调
+         * @return false: 超出上限，结果不完整
+         */
+        boolean load(String addressUrl, String sessionId, String projection, Consumer<List<ObjectItem>> consumer);
+    }
+
+    /**
+     * 子节点加载任务
+     */
+    private static class LoadingTask {
+        private final    int         generation;
+        private final    LoadingNode placeholder = new LoadingNode();
+        private volatile Future<?>   future;
+
+        LoadingTask(int generation) {
+            this.generation = generation;
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(true);
+            }
         }
-        this.tree.expandPath(tree.getSelectionPath());
     }
-}
\ No newline at end of file
+}
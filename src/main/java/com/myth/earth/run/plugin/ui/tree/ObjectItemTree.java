@@ -23,6 +23,7 @@ import com.intellij.ui.treeStructure.Tree;
 import com.intellij.util.EditSourceOnDoubleClickHandler;
 import com.intellij.util.EditSourceOnEnterKeyHandler;
 import com.intellij.util.ui.JBUI;
+import com.myth.earth.run.plugin.ui.tree.node.AbstractObjectItemNode;
 import com.myth.earth.run.plugin.ui.tree.node.ObjectItemNode;
 import com.myth.earth.run.plugin.ui.tree.renderer.ObjectItemTreeRenderer;
 import org.jetbrains.annotations.NonNls;
@@ -83,4 +84,18 @@ public class ObjectItemTree extends Tree implements DataProvider {
         }
         return null;
     }
+
+    /**
+     * 获取当前选中的节点，包含分段节点
+     *
+     * @return selectedNode
+     */
+    @CheckForNull
+    public AbstractObjectItemNode getSelectNode() {
+        DefaultMutableTreeNode selectedNode = getSelectedNode();
+        if (selectedNode instanceof AbstractObjectItemNode) {
+            return (AbstractObjectItemNode) selectedNode;
+        }
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.ui.tree.node;
+
+import com.intellij.ui.SimpleTextAttributes;
+import com.myth.earth.run.plugin.ui.tree.renderer.ObjectItemTreeRenderer;
+
+/**
+ * 子节点加载中的占位节点
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午5:10
+ */
+public class LoadingNode extends AbstractObjectItemNode {
+
+    private final static String LOADING_TEXT = "加载中…";
+
+    @Override
+    public void render(ObjectItemTreeRenderer objectItemTreeRenderer) {
+        objectItemTreeRenderer.append(LOADING_TEXT, SimpleTextAttributes.GRAYED_ITALIC_ATTRIBUTES);
+    }
+}
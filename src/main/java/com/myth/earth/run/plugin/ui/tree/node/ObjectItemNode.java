@@ -17,6 +17,7 @@ package com.myth.earth.run.plugin.ui.tree.node;
 
 import com.intellij.ui.SimpleTextAttributes;
 import com.myth.earth.run.bean.ObjectItem;
+import com.myth.earth.run.bean.ObjectItemFlag;
 import com.myth.earth.run.plugin.ui.tree.renderer.ObjectItemTreeRenderer;
 import com.myth.earth.run.utils.TextIconUtil;
 import lombok.Getter;
@@ -57,7 +58,7 @@ public class ObjectItemNode extends AbstractObjectItemNode {
             return;
         }
 
-        String flag = objectItem.getFlag();
+        ObjectItemFlag flag = objectItem.getFlag();
         if (flag == null) {
             if (objectItem.isAtomic()) {
                 objectItemTreeRenderer.append(objectItem.getName() + " = " + objectItem.getValue(), GREEN);
@@ -72,19 +73,19 @@ public class ObjectItemNode extends AbstractObjectItemNode {
 
         // objectItemTreeRenderer.append(flag + spaceAndThinSpace(), RED);
         switch (flag) {
-            case "root":
+            case ROOT:
                 rootRenderer(objectItemTreeRenderer, objectItem);
                 break;
-            case "property":
+            case PROPERTY:
                 propertyRenderer(objectItemTreeRenderer, objectItem);
                 break;
-            case "method":
+            case METHOD:
                 methodRenderer(objectItemTreeRenderer, objectItem);
                 break;
-            case "entry":
+            case ENTRY:
                 entryRenderer(objectItemTreeRenderer, objectItem);
                 break;
-            case "index":
+            case INDEX:
                 indexRenderer(objectItemTreeRenderer, objectItem);
                 break;
             default:
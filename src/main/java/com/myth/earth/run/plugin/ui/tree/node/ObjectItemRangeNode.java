@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.plugin.ui.tree.node;
+
+import com.intellij.ui.SimpleTextAttributes;
+import com.myth.earth.run.bean.ObjectItem;
+import com.myth.earth.run.plugin.ui.tree.renderer.ObjectItemTreeRenderer;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 大集合的分段节点，展开时才按区间 [from, to) 加载子节点
+ *
+ * @author zhouchao
+ * @date 2026-10-18 下午6:02
+ */
+@Getter
+public class ObjectItemRangeNode extends AbstractObjectItemNode {
+
+    /**
+     * 所属的集合对象
+     */
+    private final ObjectItem owner;
+    /**
+     * 起始下标（包含）
+     */
+    private final int        from;
+    /**
+     * 结束下标（不包含）
+     */
+    private final int        to;
+
+    public ObjectItemRangeNode(@NotNull ObjectItem owner, int from, int to) {
+        this.owner = owner;
+        this.from = from;
+        this.to = to;
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public void render(ObjectItemTreeRenderer objectItemTreeRenderer) {
+        objectItemTreeRenderer.append("[" + from + ".." + (to - 1) + "]", SimpleTextAttributes.GRAY_ATTRIBUTES);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ".." + (to - 1) + "]";
+    }
+}
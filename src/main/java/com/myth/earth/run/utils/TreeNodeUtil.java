@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 树节点批量操作
+ *
+ * @author zhouchao
+ * @date 2026-10-20 上午11:20
+ */
+public class TreeNodeUtil {
+
+    /**
+     * 将子节点追加到父节点末尾，全部挂载后只触发一次 nodesWereInserted <br/>
+     * <p>
+     * 逐个调用 insertNodeInto 时每个子节点都会触发一次事件，JTree 随之重新计算行高和布局，数万子节点时界面明显卡顿。
+     *
+     * @param model       树模型
+     * @param parentNode  父节点
+     * @param children    待挂载的子节点
+     * @param placeholder 判断末尾节点是否为占位节点，是则插在其之前，保持占位节点在最后
+     * @return 第一个子节点的下标
+     */
+    public static int appendChildren(@NotNull DefaultTreeModel model, @NotNull DefaultMutableTreeNode parentNode,
+                                     @NotNull List<? extends MutableTreeNode> children, @NotNull Predicate<TreeNode> placeholder) {
+        int offset = parentNode.getChildCount();
+        if (offset > 0 && placeholder.test(parentNode.getLastChild())) {
+            offset--;
+        }
+        if (children.isEmpty()) {
+            return offset;
+        }
+        int[] newIdx = new int[children.size()];
+        for (int i = 0; i < children.size(); i++) {
+            parentNode.insert(children.get(i), offset + i);
+            newIdx[i] = offset + i;
+        }
+        model.nodesWereInserted(parentNode, newIdx);
+        return offset;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.bean;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * object item 内存占用及路径拼接测试，内存对比结果输出到控制台
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午2:10
+ */
+class ObjectItemTest {
+
+    private static final int ITEMS = 20_000;
+
+    @Test
+    void compactRetainsLessMemory() throws Exception {
+        String json = sampleJson();
+        ObjectItem plain = JSON.parseObject(json, ObjectItem.class);
+        ObjectItem compacted = JSON.parseObject(json, ObjectItem.class);
+        compacted.compact();
+
+        Footprint before = Footprint.of(plain);
+        Footprint after = Footprint.of(compacted);
+        System.out.printf("items=%d path chars: %d -> %d, type/name strings: %d references, %d instances%n",
+                          ITEMS, before.pathChars, after.pathChars, after.references, after.names.size());
+
+        // 类名、属性名全部复用：3个类名、2个属性名
+        assertEquals(5, after.names.size());
+        // 子节点只保留相对路径
+        assertTrue(after.pathChars * 3 < before.pathChars);
+        // 拼接出的完整路径不变
+        assertEquals(plain.getChildren().get(ITEMS - 1).getChildren().get(1).getPath(),
+                     compacted.getChildren().get(ITEMS - 1).getChildren().get(1).getPath());
+    }
+
+    @Test
+    void serializeWithoutParent() {
+        ObjectItem root = JSON.parseObject(sampleJson(), ObjectItem.class);
+        root.compact();
+        ObjectItem order = root.getChildren().get(0);
+
+        String json = JSON.toJSONString(order);
+        assertFalse(json.contains("$ref"));
+        assertFalse(json.contains("\"parent\""));
+        assertEquals("root.orders[0].id", JSON.parseObject(json, ObjectItem.class).getChildren().get(0).getPath());
+    }
+
+    @Test
+    void attachKeepsUnrelatedPath() {
+        ObjectItem parent = new ObjectItem();
+        parent.setPath("root.a");
+        ObjectItem child = new ObjectItem();
+        child.setPath("other.b");
+        assertEquals("other.b", child.attachTo(parent, parent.getPath()));
+        assertNull(child.getParent());
+        assertEquals("other.b", child.getPath());
+    }
+
+    /**
+     * 模拟一个 List&lt;Order&gt; 的展开结果，每个元素带两个属性子节点
+     */
+    private static String sampleJson() {
+        ObjectItem root = item("orders", "java.util.ArrayList", "root.orders");
+        List<ObjectItem> orders = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            String path = "root.orders[" + i + "]";
+            ObjectItem order = item("[" + i + "]", "com.example.order.Order", path);
+            List<ObjectItem> fields = new ArrayList<>(2);
+            fields.add(item("id", "java.lang.Long", path + ".id"));
+            fields.add(item("status", "java.lang.String", path + ".status"));
+            order.setChildren(fields);
+            orders.add(order);
+        }
+        root.setChildren(orders);
+        return JSON.toJSONString(root);
+    }
+
+    private static ObjectItem item(String name, String type, String path) {
+        ObjectItem item = new ObjectItem();
+        item.setName(name);
+        item.setType(type);
+        item.setPath(path);
+        return item;
+    }
+
+    /**
+     * 对象树保留的路径字符数及不同类名/属性名字符串实例数（下标名称除外）
+     */
+    private static class Footprint {
+        private final Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+        private       long        pathChars;
+        private       long        references;
+
+        static Footprint of(ObjectItem root) throws ReflectiveOperationException {
+            Field path = ObjectItem.class.getDeclaredField("path");
+            path.setAccessible(true);
+            Footprint footprint = new Footprint();
+            footprint.visit(root, path, true);
+            return footprint;
+        }
+
+        private void visit(ObjectItem item, Field path, boolean root) throws ReflectiveOperationException {
+            pathChars += ((String) path.get(item)).length();
+            if (!root) {
+                names.add(item.getType());
+                references++;
+                if (!item.getName().startsWith("[")) {
+                    names.add(item.getName());
+                    references++;
+                }
+            }
+            if (item.getChildren() != null) {
+                for (ObjectItem child : item.getChildren()) {
+                    visit(child, path, false);
+                }
+            }
+        }
+    }
+}
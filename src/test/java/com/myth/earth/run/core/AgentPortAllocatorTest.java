@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * agent 端口分配测试
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午5:20
+ */
+class AgentPortAllocatorTest {
+
+    @Test
+    void reuseLeaseHeldByResidentAgent() throws IOException {
+        AgentPortAllocator allocator = new AgentPortAllocator(47100, 47200);
+        int port = allocator.lease("1", leased -> false);
+        try (ServerSocket agent = new ServerSocket()) {
+            agent.setReuseAddress(false);
+            agent.bind(new InetSocketAddress(port));
+            // 端口被该进程自己的常驻agent占用时沿用
+            assertEquals(port, allocator.lease("1", leased -> leased == port));
+            // 被其它程序占用时重新分配
+            assertNotEquals(port, allocator.lease("1", leased -> false));
+        }
+    }
+
+    @Test
+    void leaseDistinctPorts() {
+        AgentPortAllocator allocator = new AgentPortAllocator(47100, 47200);
+        assertNotEquals(allocator.lease("1", leased -> false), allocator.lease("2", leased -> false));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.ObjectItem;
+import com.myth.earth.run.bean.ObjectItemFlag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CBOR 解码测试
+ *
+ * @author zhouchao
+ * @date 2026-10-20 上午10:15
+ */
+class CborWireCodecTest {
+
+    @Test
+    void readDefiniteLengths() throws IOException {
+        CborWriter writer = new CborWriter().array(2);
+        writer.map(6).text("name").text("list").text("type").text("java.util.ArrayList").text("flag").text("property")
+              .text("path").text("root.list").text("childSize").integer(3).text("children").array(1)
+              .map(2).text("name").text("[0]").text("value").integer(-42);
+        writer.map(2).text("name").text("count").text("atomic").bool(true);
+
+        List<ObjectItem> items = readArray(writer);
+        assertEquals(2, items.size());
+        ObjectItem list = items.get(0);
+        assertEquals("list", list.getName());
+        assertEquals("java.util.ArrayList", list.getType());
+        assertEquals(ObjectItemFlag.PROPERTY, list.getFlag());
+        assertEquals("root.list", list.getPath());
+        assertEquals(3, (int) list.getChildSize());
+        assertEquals(1, list.getChildren().size());
+        assertEquals("-42", list.getChildren().get(0).getValue());
+        assertTrue(items.get(1).isAtomic());
+    }
+
+    @Test
+    void readIndefiniteLengths() throws IOException {
+        CborWriter writer = new CborWriter().indefiniteArray();
+        writer.indefiniteMap().text("name").chunkedText("lo", "ng").text("children").indefiniteArray()
+              .map(1).text("name").text("child").end().end();
+        writer.end();
+
+        List<ObjectItem> items = readArray(writer);
+        assertEquals(1, items.size());
+        assertEquals("long", items.get(0).getName());
+        assertEquals("child", items.get(0).getChildren().get(0).getName());
+    }
+
+    @Test
+    void readTaggedValues() throws IOException {
+        // 自描述标签包裹整个对象，日期标签包裹文本
+        CborWriter writer = new CborWriter().tag(55799).map(2)
+                                            .text("value").tag(0).text("2026-10-20T10:15:00Z")
+                                            .text("childSize").tag(2).integer(7);
+
+        ObjectItem item = readObject(writer);
+        assertEquals("2026-10-20T10:15:00Z", item.getValue());
+        assertEquals(7, (int) item.getChildSize());
+    }
+
+    @Test
+    void readFloats() throws IOException {
+        assertEquals("1.5", readValue(new CborWriter().half(0x3e00)));
+        assertEquals("-2.0", readValue(new CborWriter().half(0xc000)));
+        assertEquals("5.9604645E-8", readValue(new CborWriter().half(0x0001)));
+        assertEquals("Infinity", readValue(new CborWriter().half(0x7c00)));
+        assertEquals("NaN", readValue(new CborWriter().half(0x7e00)));
+        assertEquals("0.25", readValue(new CborWriter().float32(0.25f)));
+        assertEquals("3.141592653589793", readValue(new CborWriter().float64(Math.PI)));
+    }
+
+    @Test
+    void readSimpleValues() throws IOException {
+        assertEquals("false", readValue(new CborWriter().bool(false)));
+        assertNull(readValue(new CborWriter().nil()));
+        // undefined
+        assertNull(readValue(new CborWriter().simple(23)));
+        assertNull(readValue(new CborWriter().simple(16)));
+
+        // 单字节扩展的简单值需要连同扩展字节一起读取，后续字段不受影响
+        ObjectItem item = readObject(new CborWriter().map(2).text("value").simple(255).text("path").text("root.a"));
+        assertNull(item.getValue());
+        assertEquals("root.a", item.getPath());
+    }
+
+    @Test
+    void skipUnknownFields() throws IOException {
+        CborWriter writer = new CborWriter().map(3);
+        writer.text("extra").indefiniteMap().text("k").array(2).bytes(new byte[]{1, 2}).tag(1).integer(1_700_000_000L)
+              .text("f").half(0x3c00).text("s").simple(100).end();
+        writer.text("blob").bytes(new byte[300]);
+        writer.text("name").text("after");
+
+        assertEquals("after", readObject(writer).getName());
+    }
+
+    @Test
+    void readIntegerWidths() throws IOException {
+        assertEquals("23", readValue(new CborWriter().integer(23)));
+        assertEquals("255", readValue(new CborWriter().integer(255)));
+        assertEquals("65535", readValue(new CborWriter().integer(65535)));
+        assertEquals("4294967295", readValue(new CborWriter().integer(4294967295L)));
+        assertEquals("4294967296", readValue(new CborWriter().integer(4294967296L)));
+        assertEquals("-256", readValue(new CborWriter().integer(-256)));
+    }
+
+    @Test
+    void rejectOversizedString() {
+        // 声明长度远超实际内容，不应按声明长度分配内存
+        CborWriter writer = new CborWriter().map(1).text("value").head(3, Integer.MAX_VALUE);
+        IOException e = assertThrows(IOException.class, () -> readObject(writer));
+        assertTrue(e.getMessage().contains("过长"));
+    }
+
+    @Test
+    void rejectNegativeLength() {
+        CborWriter writer = new CborWriter().map(1).text("value").raw(0x7b, 0x80, 0, 0, 0, 0, 0, 0, 0);
+        assertThrows(IOException.class, () -> readObject(writer));
+    }
+
+    @Test
+    void readEmptyBody() throws IOException {
+        assertNull(WireCodec.CBOR.readObject(new ByteArrayInputStream(new byte[0])));
+        assertTrue(readArray(new CborWriter()).isEmpty());
+    }
+
+    @Test
+    void stopArrayEarly() throws IOException {
+        CborWriter writer = new CborWriter().array(10);
+        for (int i = 0; i < 10; i++) {
+            writer.map(1).text("name").text("item" + i);
+        }
+        List<ObjectItem> items = new ArrayList<>();
+        WireCodec.CBOR.readArray(new ByteArrayInputStream(writer.toByteArray()), item -> {
+            items.add(item);
+            return items.size() < 3;
+        });
+        assertEquals(3, items.size());
+    }
+
+    private static List<ObjectItem> readArray(CborWriter writer) throws IOException {
+        List<ObjectItem> items = new ArrayList<>();
+        WireCodec.CBOR.readArray(new ByteArrayInputStream(writer.toByteArray()), items::add);
+        return items;
+    }
+
+    private static ObjectItem readObject(CborWriter writer) throws IOException {
+        return WireCodec.CBOR.readObject(new ByteArrayInputStream(writer.toByteArray()));
+    }
+
+    /**
+     * 将数据项作为 value 字段读取
+     */
+    private static String readValue(CborWriter value) throws IOException {
+        CborWriter writer = new CborWriter().map(1).text("value").raw(toInts(value.toByteArray()));
+        return readObject(writer).getValue();
+    }
+
+    private static int[] toInts(byte[] bytes) {
+        int[] ints = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            ints[i] = bytes[i] & 0xff;
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.ObjectItem;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 测试用的 CBOR 编码，按 agent 的输出格式构造响应内容
+ *
+ * @author zhouchao
+ * @date 2026-10-20 上午10:15
+ */
+class CborWriter {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    CborWriter head(int major, long value) {
+        int type = major << 5;
+        if (value < 24) {
+            out.write(type | (int) value);
+        } else if (value < 0x100) {
+            out.write(type | 24);
+            out.write((int) value);
+        } else if (value < 0x10000) {
+            out.write(type | 25);
+            writeBytes(value, 2);
+        } else if (value < 0x100000000L) {
+            out.write(type | 26);
+            writeBytes(value, 4);
+        } else {
+            out.write(type | 27);
+            writeBytes(value, 8);
+        }
+        return this;
+    }
+
+    CborWriter raw(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+        return this;
+    }
+
+    CborWriter integer(long value) {
+        return value >= 0 ? head(0, value) : head(1, -1 - value);
+    }
+
+    CborWriter text(@NotNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        head(3, bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    CborWriter bytes(@NotNull byte[] value) {
+        head(2, value.length);
+        out.write(value, 0, value.length);
+        return this;
+    }
+
+    /**
+     * 分段文本串
+     */
+    CborWriter chunkedText(@NotNull String... chunks) {
+        out.write(3 << 5 | 31);
+        for (String chunk : chunks) {
+            text(chunk);
+        }
+        return end();
+    }
+
+    CborWriter array(int size) {
+        return head(4, size);
+    }
+
+    CborWriter indefiniteArray() {
+        out.write(4 << 5 | 31);
+        return this;
+    }
+
+    CborWriter map(int size) {
+        return head(5, size);
+    }
+
+    CborWriter indefiniteMap() {
+        out.write(5 << 5 | 31);
+        return this;
+    }
+
+    CborWriter tag(long tag) {
+        return head(6, tag);
+    }
+
+    CborWriter bool(boolean value) {
+        return raw(value ? 0xf5 : 0xf4);
+    }
+
+    CborWriter nil() {
+        return raw(0xf6);
+    }
+
+    /**
+     * 简单值，大于等于24时使用单字节扩展(0xf8 xx)
+     */
+    CborWriter simple(int value) {
+        return value < 24 ? raw(0xe0 | value) : raw(0xf8, value);
+    }
+
+    CborWriter half(int bits) {
+        out.write(0xf9);
+        writeBytes(bits, 2);
+        return this;
+    }
+
+    CborWriter float32(float value) {
+        out.write(0xfa);
+        writeBytes(Float.floatToIntBits(value) & 0xffffffffL, 4);
+        return this;
+    }
+
+    CborWriter float64(double value) {
+        out.write(0xfb);
+        writeBytes(Double.doubleToLongBits(value), 8);
+        return this;
+    }
+
+    CborWriter end() {
+        out.write(0xff);
+        return this;
+    }
+
+    /**
+     * 按 agent 的字段编码 ObjectItem，空字段不输出
+     */
+    CborWriter item(@NotNull ObjectItem item) {
+        int size = 0;
+        Object[] fields = {item.getName(), item.getType(), item.getFlag(), item.getValue(), item.getPath(), item.getChildSize(), item.getChildren()};
+        for (Object field : fields) {
+            if (field != null) {
+                size++;
+            }
+        }
+        map(size + 1);
+        if (item.getName() != null) {
+            text("name").text(item.getName());
+        }
+        if (item.getType() != null) {
+            text("type").text(item.getType());
+        }
+        if (item.getFlag() != null) {
+            text("flag").text(item.getFlag().getCode());
+        }
+        if (item.getValue() != null) {
+            text("value").text(item.getValue());
+        }
+        if (item.getPath() != null) {
+            text("path").text(item.getPath());
+        }
+        if (item.getChildSize() != null) {
+            text("childSize").integer(item.getChildSize());
+        }
+        text("atomic").bool(item.isAtomic());
+        if (item.getChildren() != null) {
+            text("children").array(item.getChildren().size());
+            item.getChildren().forEach(this::item);
+        }
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeBytes(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            out.write((int) (value >>> (i * 8)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.ObjectItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多层子节点解析测试：节点数量上限及截断判断
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午3:30
+ */
+class EarthHttpHelperTest {
+
+    @Test
+    void exactlyMaxNodesIsComplete() throws IOException {
+        // 2个子节点，各带2个子孙节点，共6个
+        List<ObjectItem> items = new ArrayList<>();
+        assertTrue(read(tree(2, 2), 6, items));
+        assertEquals(6, count(items));
+    }
+
+    @Test
+    void stopAtMaxNodes() throws IOException {
+        List<ObjectItem> items = new ArrayList<>();
+        assertFalse(read(tree(3, 2), 6, items));
+        assertEquals(2, items.size());
+        assertEquals(6, count(items));
+    }
+
+    @Test
+    void trimSubtreeCrossingLimit() throws IOException {
+        List<ObjectItem> items = new ArrayList<>();
+        assertFalse(read(tree(2, 2), 5, items));
+        assertEquals(5, count(items));
+        List<ObjectItem> children = items.get(1).getChildren();
+        assertEquals(1, children.size());
+        assertEquals("root.c1.g0", children.get(0).getPath());
+    }
+
+    @Test
+    void trimNestedSubtree() throws IOException {
+        CborWriter writer = new CborWriter().array(1);
+        ObjectItem child = item("root.c0");
+        ObjectItem grandChild = item("root.c0.g0");
+        grandChild.setChildren(List.of(item("root.c0.g0.x"), item("root.c0.g0.y")));
+        child.setChildren(List.of(grandChild, item("root.c0.g1")));
+        writer.item(child);
+
+        List<ObjectItem> items = new ArrayList<>();
+        assertFalse(read(writer, 3, items));
+        assertEquals(3, count(items));
+        assertEquals(1, items.get(0).getChildren().size());
+        assertEquals(1, items.get(0).getChildren().get(0).getChildren().size());
+    }
+
+    private static boolean read(CborWriter writer, int maxNodes, List<ObjectItem> items) throws IOException {
+        ObjectItem parent = item("root");
+        EarthHttpPool.AgentResponse response = new EarthHttpPool.AgentResponse(200, Map.of("content-type", WireCodec.CBOR.getContentType()),
+                                                                               new ByteArrayInputStream(new byte[0]), () -> {});
+        return EarthHttpHelper.readObjectItems(response, new ByteArrayInputStream(writer.toByteArray()), parent, maxNodes, items::addAll);
+    }
+
+    /**
+     * 子节点数组，每个子节点带相同数量的子孙节点
+     */
+    private static CborWriter tree(int children, int grandChildren) {
+        CborWriter writer = new CborWriter().array(children);
+        for (int i = 0; i < children; i++) {
+            ObjectItem child = item("root.c" + i);
+            List<ObjectItem> list = new ArrayList<>();
+            for (int j = 0; j < grandChildren; j++) {
+                list.add(item("root.c" + i + ".g" + j));
+            }
+            child.setChildren(list);
+            writer.item(child);
+        }
+        return writer;
+    }
+
+    private static ObjectItem item(String path) {
+        ObjectItem item = new ObjectItem();
+        item.setName(path.substring(path.lastIndexOf('.') + 1));
+        item.setPath(path);
+        return item;
+    }
+
+    private static int count(List<ObjectItem> items) {
+        int count = 0;
+        for (ObjectItem item : items) {
+            count++;
+            if (item.getChildren() != null) {
+                count += count(item.getChildren());
+            }
+        }
+        return count;
+    }
+}
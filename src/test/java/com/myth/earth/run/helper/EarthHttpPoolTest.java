@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.myth.earth.run.bean.HttpPoolConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接池配置变更测试
+ *
+ * @author zhouchao
+ * @date 2026-10-20 下午4:50
+ */
+class EarthHttpPoolTest {
+
+    @Test
+    void configureKeepsInFlightRequests() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/slow", exchange -> {
+            received.countDown();
+            try {
+                respond.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, "slow");
+        });
+        server.createContext("/fast", exchange -> reply(exchange, "fast"));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        try {
+            String addressUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+            CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> EarthHttpPool.get(addressUrl + "/slow"));
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+
+            // 另一个配置生效后，进行中的请求照常完成，新请求使用新建的连接池
+            HttpPoolConfig config = new HttpPoolConfig();
+            config.setMaxConnections(2);
+            EarthHttpPool.configure(config);
+            assertEquals("fast", EarthHttpPool.get(addressUrl + "/fast"));
+            respond.countDown();
+            assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+            assertEquals("fast", EarthHttpPool.get(addressUrl + "/fast"));
+        } finally {
+            respond.countDown();
+            EarthHttpPool.configure(new HttpPoolConfig());
+            server.stop(0);
+        }
+    }
+
+    private static void reply(HttpExchange exchange, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.helper;
+
+import com.alibaba.fastjson.JSON;
+import com.myth.earth.run.bean.ObjectItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JSON 与 CBOR 编解码对比：响应大小及耗时，结果输出到控制台
+ *
+ * @author zhouchao
+ * @date 2026-10-20 上午10:40
+ */
+class WireCodecBenchmarkTest {
+
+    private static final int ITEMS  = 20_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareJsonAndCbor() throws IOException {
+        List<ObjectItem> items = sampleItems();
+
+        long start = System.nanoTime();
+        byte[] json = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            json = JSON.toJSONString(items).getBytes(StandardCharsets.UTF_8);
+        }
+        long jsonEncode = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        byte[] cbor = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            CborWriter writer = new CborWriter().array(items.size());
+            items.forEach(writer::item);
+            cbor = writer.toByteArray();
+        }
+        long cborEncode = System.nanoTime() - start;
+
+        int[] counts = new int[2];
+        long jsonDecode = decode(WireCodec.JSON, json, counts, 0);
+        long cborDecode = decode(WireCodec.CBOR, cbor, counts, 1);
+
+        System.out.printf("items=%d json: %d bytes, encode %d ms, decode %d ms%n", ITEMS, json.length, millis(jsonEncode), millis(jsonDecode));
+        System.out.printf("items=%d cbor: %d bytes, encode %d ms, decode %d ms%n", ITEMS, cbor.length, millis(cborEncode), millis(cborDecode));
+
+        assertEquals(ITEMS, counts[0]);
+        assertEquals(ITEMS, counts[1]);
+        assertTrue(cbor.length < json.length);
+    }
+
+    private static long decode(WireCodec codec, byte[] body, int[] counts, int index) throws IOException {
+        // 预热一轮，避免首次类加载计入耗时
+        codec.readArray(new ByteArrayInputStream(body), item -> true);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            AtomicInteger count = new AtomicInteger();
+            codec.readArray(new ByteArrayInputStream(body), item -> count.incrementAndGet() > 0);
+            counts[index] = count.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 模拟一个 List&lt;Order&gt; 的展开结果，每个元素带两个属性子节点
+     */
+    private static List<ObjectItem> sampleItems() {
+        List<ObjectItem> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            ObjectItem item = new ObjectItem();
+            item.setName("[" + i + "]");
+            item.setType("com.example.order.Order");
+            item.setFlag("index");
+            item.setPath("root.orders[" + i + "]");
+            item.setChildSize(2);
+            List<ObjectItem> children = new ArrayList<>(2);
+            children.add(child(item, "id", "java.lang.Long", String.valueOf(100_000L + i)));
+            children.add(child(item, "status", "java.lang.String", i % 2 == 0 ? "PAID" : "CREATED"));
+            item.setChildren(children);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static ObjectItem child(ObjectItem parent, String name, String type, String value) {
+        ObjectItem child = new ObjectItem();
+        child.setName(name);
+        child.setType(type);
+        child.setFlag("property");
+        child.setValue(value);
+        child.setAtomic(true);
+        child.setPath(parent.getPath() + "." + name);
+        return child;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
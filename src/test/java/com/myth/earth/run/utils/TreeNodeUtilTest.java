@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025 周潮. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.myth.earth.run.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量挂载子节点测试：对比逐个插入时的事件数量及耗时，结果输出到控制台
+ *
+ * @author zhouchao
+ * @date 2026-10-20 上午11:40
+ */
+class TreeNodeUtilTest {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+
+    @Test
+    void appendChildrenFiresSingleEvent() {
+        for (int size : SIZES) {
+            // 逐个插入：每个子节点通知一次插入和一次父节点变化
+            DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+            DefaultTreeModel model = new DefaultTreeModel(root);
+            EventCounter perChild = new EventCounter(model);
+            long start = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                root.insert(new DefaultMutableTreeNode(i), i);
+                model.nodesWereInserted(root, new int[]{i});
+                model.nodeChanged(root);
+            }
+            long perChildCost = System.nanoTime() - start;
+
+            root = new DefaultMutableTreeNode();
+            model = new DefaultTreeModel(root);
+            EventCounter batch = new EventCounter(model);
+            List<DefaultMutableTreeNode> children = children(0, size);
+            start = System.nanoTime();
+            TreeNodeUtil.appendChildren(model, root, children, node -> false);
+            long batchCost = System.nanoTime() - start;
+
+            System.out.printf("children=%d per-child: %d events, %d ms; batch: %d events, %d ms%n",
+                              size, perChild.events, perChildCost / 1_000_000, batch.events, batchCost / 1_000_000);
+            assertEquals(2 * size, perChild.events);
+            assertEquals(1, batch.events);
+            assertEquals(size, batch.inserted);
+            assertEquals(size, root.getChildCount());
+        }
+    }
+
+    @Test
+    void appendChildrenKeepsPlaceholderLast() {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+        DefaultTreeModel model = new DefaultTreeModel(root);
+        DefaultMutableTreeNode placeholder = new DefaultMutableTreeNode("loading");
+        root.add(placeholder);
+        Predicate<TreeNode> isPlaceholder = node -> node == placeholder;
+
+        assertEquals(0, TreeNodeUtil.appendChildren(model, root, children(0, 3), isPlaceholder));
+        assertEquals(3, TreeNodeUtil.appendChildren(model, root, children(3, 5), isPlaceholder));
+        assertEquals(6, root.getChildCount());
+        assertSame(placeholder, root.getLastChild());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, ((DefaultMutableTreeNode) root.getChildAt(i)).getUserObject());
+        }
+    }
+
+    @Test
+    void appendNothing() {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+        DefaultTreeModel model = new DefaultTreeModel(root);
+        EventCounter counter = new EventCounter(model);
+        assertEquals(0, TreeNodeUtil.appendChildren(model, root, new ArrayList<DefaultMutableTreeNode>(), node -> false));
+        assertEquals(0, counter.events);
+    }
+
+    private static List<DefaultMutableTreeNode> children(int from, int to) {
+        List<DefaultMutableTreeNode> children = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            children.add(new DefaultMutableTreeNode(i));
+        }
+        return children;
+    }
+
+    private static class EventCounter implements TreeModelListener {
+        private int events;
+        private int inserted;
+
+        EventCounter(DefaultTreeModel model) {
+            model.addTreeModelListener(this);
+        }
+
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) {
+            events++;
+        }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            events++;
+            inserted += e.getChildIndices().length;
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            events++;
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) {
+            events++;
+        }
+    }
+}